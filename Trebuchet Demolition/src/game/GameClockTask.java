@@ -0,0 +1,27 @@
+package game;
+
+/**
+ * A task which is run on the Swing thread after the physics engine has been
+ * update()d, to check for a win, keep score and repaint
+ * 
+ * @author Gordon Guan
+ * @version Dec 2014
+ */
+public class GameClockTask implements Runnable
+{
+	private GamePanel panel;
+
+	public GameClockTask(GamePanel panel)
+	{
+		super();
+		this.panel = panel;
+	}
+
+	@Override
+	public void run()
+	{
+		panel.checkWin();
+		panel.doScore();
+		panel.repaint();
+	}
+}
@@ -1,5 +1,6 @@
 package game;
 
+import game.graphics.EntityRenderer;
 import game.graphics.GraphicsTools;
 import game.graphics.ScreenType;
 import game.graphics.menu.Menu;
@@ -9,9 +10,11 @@ import game.graphics.menu.ToggleMenuItem;
 import game.level.Level;
 import game.level.LevelEditor;
 import game.level.LevelManager;
+import game.level.Replay;
 import game.physics.PhysicsEngine;
-import game.physics.entity.Entity2D;
-import game.physics.tasks.GameClockTask;
+import game.physics.ReplayPlayer;
+import game.physics.WorldSnapshot;
+import game.physics.tasks.SimulationThread;
 import game.physics.util.Vector2D;
 
 import java.awt.Color;
@@ -27,11 +30,16 @@ import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionListener;
 import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 import javax.imageio.ImageIO;
+import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
-import javax.swing.Timer;
+import javax.swing.SwingUtilities;
 
 /**
  * A panel which draws all the shapes and contains a physics engine, and
@@ -54,17 +62,36 @@ public class GamePanel extends JPanel
 	public static final int TEXTURE_SIZE = 128;
 	/***********************************************************************/
 	public PhysicsEngine engine;
-	private Timer physicsTimer;
+	private SimulationThread simulation;
 	private Level loadedLevel;
 
 	// Approximately 60 frames per second
 	private static final int TICK_RATE = 16;
+	// Runs the game clock task on the Swing thread
+	private static final Executor SWING_EXECUTOR = new Executor() {
+		@Override
+		public void execute(Runnable command)
+		{
+			SwingUtilities.invokeLater(command);
+		}
+	};
+	// Keep the last five seconds, and rewind half a second at a time
+	private static final int REWIND_LENGTH = 300;
+	private static final int REWIND_STEP = 30;
 	private int power = 75;
 	private int angle = 50;
+	// Reused to draw the aiming line every frame
+	private final Vector2D aimVelocity = new Vector2D();
+	private final Vector2D aimPoint = new Vector2D();
 
-	private long lastFireTime = 0;
+	// Scores are kept by updates rather than by the clock, so that replays
+	// score the same
+	private long lastFireTick = -1;
 	private int lastFirePower = 0;
 
+	private Replay recording;
+	private ReplayPlayer replayPlayer;
+
 	private boolean paused = false;
 	private boolean ctrlIsPressed = false;
 	/***********************************************************************/
@@ -97,13 +124,13 @@ public class GamePanel extends JPanel
 
 		// Create a new Physics Engine
 		engine = new PhysicsEngine(width, height);
+		engine.setRewindLength(REWIND_LENGTH);
+		engine.setPoolDebug(ConfigurationManager
+				.getBooleanProperty("debugpools"));
 
 		// Load all the images into their containers
 		loadResources();
 
-		// Create the game clock
-		physicsTimer = new Timer(TICK_RATE, new GameClockTask(this));
-
 		/* From here begins all the menu action and item setup code */
 		// Setup actions for each menu action
 		MenuItemAction playMenuItemAction = new MenuItemAction() {
@@ -136,7 +163,11 @@ public class GamePanel extends JPanel
 						+ "<tr><td>LEFT RIGHT</td><td>Fine control power</td>"
 						+ "<tr><td>ESC</td><td>Open pause menu</td>"
 						+ "<tr><td>SCROLLWHEEL</td><td>Coarse control power</td>"
-						+ "<tr><td>CTRL + SCROLLWHEEL</td><td>Coarse control angle</td></table><br><hr>"
+						+ "<tr><td>CTRL + SCROLLWHEEL</td><td>Coarse control angle</td>"
+						+ "<tr><td>R</td><td>Replay your shots</td>"
+						+ "<tr><td>0</td><td>Remove the projectile</td>"
+						+ "<tr><td>BACKSPACE</td><td>Rewind</td>"
+						+ "<tr><td>F</td><td>Skip to the result</td></table><br><hr>"
 						+ "<b>Scoring:</b><br>"
 						+ "The game has a scoring system, based on a \"lower score is better\" policy.<br>"
 						+ "Your score is determined by the amount of time it takes for you to reach the goal,<br>"
@@ -403,7 +434,20 @@ public class GamePanel extends JPanel
 					}
 					else if (keycode == KeyEvent.VK_0)
 					{
-						engine.removeLastProjectile();
+						removeProjectile();
+					}
+					else if (keycode == KeyEvent.VK_F)
+					{
+						skipToResult();
+					}
+					else if (keycode == KeyEvent.VK_BACK_SPACE)
+					{
+						rewind();
+					}
+					else if (keycode == KeyEvent.VK_R)
+					{
+						playReplay(replayPlayer != null ? replayPlayer
+								.getReplay() : recording);
 					}
 					else if (keycode == KeyEvent.VK_ESCAPE)
 					{
@@ -434,14 +478,161 @@ public class GamePanel extends JPanel
 	 */
 	public void doShot()
 	{
-		engine.removeLastProjectile();
-		lastFireTime = System.currentTimeMillis();
+		// The replay fires all the shots while it is playing
+		if (replayPlayer != null)
+			return;
+		lastFireTick = engine.replaceProjectile(power, angle);
 		loadedLevel.setScore(0);
-		engine.fireProjectile(power, angle);
 		lastFirePower = power;
+		recording.addShot(lastFireTick, power, angle);
 		TrebuchetDemolition.LOGGER.info("Fired shot");
 	}
 
+	/**
+	 * Removes the projectile fired last, and records it so replays remove it
+	 * in the same update
+	 */
+	public void removeProjectile()
+	{
+		// The replay removes the projectiles itself while it is playing
+		if (replayPlayer != null)
+			return;
+		recording.addRemoval(engine.removeLastProjectile());
+		TrebuchetDemolition.LOGGER.info("Removed projectile");
+	}
+
+	/**
+	 * Updates the game as fast as possible without drawing it, until the
+	 * target is hit or everything stops moving
+	 */
+	public void skipToResult()
+	{
+		if (simulation != null && !paused)
+		{
+			simulation.warp();
+			TrebuchetDemolition.LOGGER.info("Skipping to result");
+		}
+	}
+
+	/**
+	 * Winds the game back a little, and forgets the shots fired since then
+	 */
+	public void rewind()
+	{
+		// The replay would fire its shots at the wrong time
+		if (replayPlayer != null)
+			return;
+		engine.rewind(REWIND_STEP);
+		recording.removeShotsFrom(engine.getTickCount());
+		List<Replay.Shot> shots = recording.getShots();
+		if (shots.isEmpty())
+		{
+			lastFireTick = -1;
+		}
+		else
+		{
+			Replay.Shot lastShot = shots.get(shots.size() - 1);
+			lastFireTick = lastShot.getTick();
+			lastFirePower = lastShot.getPower();
+		}
+		TrebuchetDemolition.LOGGER.info("Rewound game");
+	}
+
+	/**
+	 * Replays shots on their level in real time, starting the level over
+	 * 
+	 * @param replay The replay to play
+	 */
+	public void playReplay(Replay replay)
+	{
+		Level replayLevel = null;
+		for (Level level : LevelManager.getLevels())
+		{
+			if (level.getFile().getName().equals(replay.getLevelID()))
+			{
+				replayLevel = level;
+			}
+		}
+		if (replayLevel == null)
+		{
+			JOptionPane.showMessageDialog(null, "The level \""
+					+ replay.getLevelID() + "\" for this replay is missing",
+					"Replay Error", JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+
+		// Stop updating first, so the replay starts from the first update
+		haltSimulation();
+		try
+		{
+			// Playing the level moves its entities, so put them back
+			replayLevel.loadEntities();
+		}
+		catch (Exception e)
+		{
+			TrebuchetDemolition.LOGGER.warning("Failed to load entities: "
+					+ e.getMessage());
+			return;
+		}
+		loadLevel(replayLevel);
+		replayPlayer = new ReplayPlayer(replay);
+		start();
+		repaint();
+		TrebuchetDemolition.LOGGER.info("Started replay");
+	}
+
+	/**
+	 * Asks for a replay saved in the "replays" directory, and plays it
+	 */
+	private void chooseReplay()
+	{
+		JFileChooser chooser = new JFileChooser();
+		chooser.setDialogTitle("Watch Replay");
+		chooser.setCurrentDirectory(new File("replays"));
+		if (chooser.showOpenDialog(null) != JFileChooser.APPROVE_OPTION)
+		{
+			return;
+		}
+		try
+		{
+			playReplay(Replay.load(chooser.getSelectedFile()));
+		}
+		catch (IOException e)
+		{
+			JOptionPane.showMessageDialog(null, "The replay couldn't be "
+					+ "loaded: " + e.getMessage(), "Replay Error",
+					JOptionPane.ERROR_MESSAGE);
+			TrebuchetDemolition.LOGGER.warning("Failed to load replay: "
+					+ e.getMessage());
+		}
+	}
+
+	/**
+	 * Saves the shots fired into the "replays" directory
+	 */
+	private void saveRecording()
+	{
+		File replayFolder = new File("replays");
+		if (!replayFolder.exists())
+		{
+			replayFolder.mkdir();
+		}
+		String levelName = loadedLevel.getFile().getName().replace(".txt", "");
+		File replayFile = new File(replayFolder, levelName + "-"
+				+ System.currentTimeMillis() + ".txt");
+		try
+		{
+			recording.save(replayFile);
+			TrebuchetDemolition.LOGGER.info("Saved replay to "
+					+ replayFile.getName());
+		}
+		catch (IOException e)
+		{
+			TrebuchetDemolition.LOGGER.warning("Failed to save replay: "
+					+ e.getMessage());
+		}
+	}
+
 	/**
 	 * Deletes all the items in the level select menu and loads them all from
 	 * LevelManager
@@ -471,10 +662,9 @@ public class GamePanel extends JPanel
 			};
 			// Load highscores
 			String highscore = "Has not been played";
-			if (level.getMetadata().getProperty("highscore") != null)
+			if (level.getHighscore() != -1)
 			{
-				highscore = "Highscore: "
-						+ level.getMetadata().getProperty("highscore");
+				highscore = "Highscore: " + level.getHighscore();
 			}
 			String menuItemText = String.format("%-25s", level.getName()
 					.substring(0, Math.min(level.getName().length(), 40)))
@@ -489,6 +679,18 @@ public class GamePanel extends JPanel
 			y += mheight + sep;
 		}
 		y += mheight + sep;
+		// Add a button to watch a saved replay
+		levelSelectMenu.addMenuItem(new MenuItem("Watch a Replay",
+				GraphicsTools.SMALL_TEXT_FONT, Color.WHITE,
+				GraphicsTools.BG_COLOR, new Rectangle(10, y, mlength, mheight),
+				new MenuItemAction() {
+					@Override
+					public void doAction(MenuItem item)
+					{
+						chooseReplay();
+					}
+				}, 1));
+		y += mheight + sep;
 		// Add return to main menu button
 		levelSelectMenu.addMenuItem(new MenuItem("Return to Main Menu",
 				GraphicsTools.SMALL_TEXT_FONT, Color.WHITE,
@@ -538,7 +740,10 @@ public class GamePanel extends JPanel
 			return;
 		}
 		loadedLevel = level;
-		lastFireTime = -1;
+		lastFireTick = -1;
+		recording = new Replay(level.getFile().getName(),
+				PhysicsEngine.VERSION, width, height);
+		replayPlayer = null;
 		TrebuchetDemolition.LOGGER.info("Loaded level \"" + level.getName()
 				+ "\" into Game Panel");
 		engine.loadLevel(level);
@@ -552,18 +757,20 @@ public class GamePanel extends JPanel
 	{
 		if (engine.hasWon())
 		{
-			String winMessage = "You have won with a score of "
-					+ loadedLevel.getScore() + "!";
-			// Highscore checking
-			String highscore = loadedLevel.getMetadata().getProperty(
-					"highscore");
-			if (highscore == null)
+			long wonTick = engine.getWonTick();
+			loadedLevel.setScore(getScore(wonTick));
+			boolean replaying = replayPlayer != null;
+			String winMessage = (replaying ? "The replay won" : "You have won")
+					+ " with a score of " + loadedLevel.getScore() + "!";
+			// Highscore checking, which replays don't count for
+			int highscore = loadedLevel.getHighscore();
+			if (!replaying && highscore == -1)
 			{
 				winMessage += " You set a new highscore!";
 			}
-			else if (Integer.parseInt(highscore) > loadedLevel.getScore())
+			else if (!replaying && highscore > loadedLevel.getScore())
 			{
-				int diff = Integer.parseInt(highscore) - loadedLevel.getScore();
+				int diff = highscore - loadedLevel.getScore();
 				winMessage += " You beat the highscore of " + highscore
 						+ " by " + diff + " points!";
 			}
@@ -572,8 +779,14 @@ public class GamePanel extends JPanel
 			stop();
 			engine.clearAll();
 			// Reset the level and scores
-			lastFireTime = -1;
-			loadedLevel.save();
+			lastFireTick = -1;
+			if (!replaying)
+			{
+				recording.setWonTick(wonTick);
+				saveRecording();
+				loadedLevel.save();
+			}
+			replayPlayer = null;
 			loadedLevel.setScore(0);
 			try
 			{
@@ -600,17 +813,44 @@ public class GamePanel extends JPanel
 	 */
 	public void doScore()
 	{
-		if (loadedLevel != null)
+		if (loadedLevel != null && simulation != null)
 		{
-			if (lastFireTime == -1) // Projectile never fired
-				loadedLevel.setScore(0);
-			else
-				loadedLevel
-						.setScore((int) ((System.currentTimeMillis() - lastFireTime)
-								* lastFirePower * lastFirePower) / 100000);
+			WorldSnapshot snapshot = simulation.acquireSnapshot();
+			try
+			{
+				loadedLevel.setScore(getScore(snapshot.getTick()));
+			}
+			finally
+			{
+				snapshot.release();
+			}
 		}
 	}
 
+	/**
+	 * Calculates the score the last projectile fired would get, if the level
+	 * was won after an amount of updates
+	 * 
+	 * @param tick The amount of updates done since the level was loaded
+	 * @return the score, or 0 if no projectile has been fired
+	 */
+	private int getScore(long tick)
+	{
+		long fireTick = lastFireTick;
+		int firePower = lastFirePower;
+		// A replay fires its own shots, so score the one it fired last
+		ReplayPlayer player = replayPlayer;
+		if (player != null)
+		{
+			Replay.Shot shot = player.getLastShot();
+			fireTick = shot == null ? -1 : shot.getTick();
+			firePower = shot == null ? 0 : shot.getPower();
+		}
+		if (fireTick == -1) // Projectile never fired
+			return 0;
+		return Level.computeScore((tick - fireTick) * TICK_RATE, firePower);
+	}
+
 	/**
 	 * Draws the menus, game, basically everything
 	 */
@@ -660,20 +900,32 @@ public class GamePanel extends JPanel
 			g.drawImage(trebuchetImage, 20, height - 60, 80, height, 0, 0,
 					trebuchetImage.getWidth(null),
 					trebuchetImage.getHeight(null), null);
-			double vecX = Math.cos(Math.toRadians(180 - angle)) * power / 9;
-			double vecY = Math.sin(Math.toRadians(180 - angle)) * power / 9;
-			Vector2D vel = new Vector2D(vecX * 10, vecY * 10);
-			Vector2D shootPoint = new Vector2D(50, height - 50);
+			Vector2D vel = PhysicsEngine.getLaunchVelocity(power, angle,
+					aimVelocity).scaleLocal(10);
+			Vector2D shootPoint = engine.getLaunchPoint(aimPoint);
 
 			g.setColor(Color.RED);
 			g.drawLine((int) shootPoint.x, (int) shootPoint.y,
 					(int) (shootPoint.x - vel.x), (int) (shootPoint.y - vel.y));
 			g.setColor(Color.BLACK);
 
-			// Draw all the entities on the screen
-			for (Entity2D entity : engine.getEntities())
+			// Draw all the entities on the screen, from the last snapshot so
+			// the simulation can keep going while this paints
+			if (simulation != null)
 			{
-				entity.drawEntity(g);
+				WorldSnapshot snapshot = simulation.acquireSnapshot();
+				try
+				{
+					for (int index = 0; index < snapshot.getEntityCount();
+							index++)
+					{
+						EntityRenderer.drawEntity(g, snapshot.getEntity(index));
+					}
+				}
+				finally
+				{
+					snapshot.release();
+				}
 			}
 			// Draw pause menu
 			if (paused)
@@ -779,7 +1031,14 @@ public class GamePanel extends JPanel
 	 */
 	public void start()
 	{
-		physicsTimer.start();
+		if (simulation != null)
+		{
+			simulation.halt();
+		}
+		simulation = new SimulationThread(engine, TICK_RATE,
+				new GameClockTask(this), SWING_EXECUTOR);
+		simulation.setReplay(replayPlayer);
+		simulation.start();
 		displayScreen = ScreenType.IN_GAME;
 		paused = false;
 		TrebuchetDemolition.LOGGER.info("Game clock has started");
@@ -790,7 +1049,7 @@ public class GamePanel extends JPanel
 	 */
 	public void pause()
 	{
-		physicsTimer.stop();
+		haltSimulation();
 		paused = true;
 		TrebuchetDemolition.LOGGER.info("Game clock has paused");
 	}
@@ -800,19 +1059,21 @@ public class GamePanel extends JPanel
 	 */
 	public void stop()
 	{
-		physicsTimer.stop();
+		haltSimulation();
 		displayScreen = ScreenType.MAIN_MENU;
 		paused = false;
 		TrebuchetDemolition.LOGGER.info("Game clock has stopped");
 	}
 
 	/**
-	 * Causes the physics engine to do a tick, and repaints
+	 * Stops the simulation thread, but keeps its last snapshot for painting
 	 */
-	public void tick()
+	private void haltSimulation()
 	{
-		engine.update();
-		repaint(TICK_RATE);
+		if (simulation != null)
+		{
+			simulation.halt();
+		}
 	}
 
 	/**
@@ -1,5 +1,7 @@
 package game;
 
+import game.physics.util.GameLogger;
+
 import java.awt.Dimension;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -20,8 +22,7 @@ public class TrebuchetDemolition extends JFrame
 	private static final long serialVersionUID = -7601853692438229300L;
 
 	// Initiate a logger for my own logging purposes
-	public static final Logger LOGGER = Logger
-			.getLogger(TrebuchetDemolition.class.getName());
+	public static final Logger LOGGER = GameLogger.LOGGER;
 
 	public TrebuchetDemolition() throws Exception
 	{
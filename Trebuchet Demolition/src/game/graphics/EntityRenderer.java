@@ -0,0 +1,179 @@
+package game.graphics;
+
+import game.GamePanel;
+import game.physics.entity.AABB2D;
+import game.physics.entity.Circle2D;
+import game.physics.entity.Entity2D;
+import game.physics.entity.Rectangle2D;
+import game.physics.entity.Target2D;
+import game.physics.util.Vector2D;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.TexturePaint;
+import java.awt.geom.Ellipse2D;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Draws the entities from the physics engine. The entities themselves know
+ * nothing about drawing, so that the physics engine can be run without a
+ * screen; the textures are picked here by the type of entity
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class EntityRenderer
+{
+	/**
+	 * The shapes of the entities that don't move, which are shared by every
+	 * snapshot and so only have to be built once, or again when they are
+	 * moved in the level editor. Moving entities are copied for each snapshot
+	 * and are cheap to build, so they aren't kept
+	 */
+	private static final Map<Entity2D, CachedShape> shapes = new WeakHashMap<Entity2D, CachedShape>();
+	/**
+	 * The paint for each texture, so the texture isn't copied every time an
+	 * entity is drawn
+	 */
+	private static final Map<Image, TexturePaint> paints = new IdentityHashMap<Image, TexturePaint>();
+
+	/**
+	 * Draws an entity onto the given graphics, filled with its texture
+	 * 
+	 * @param g The graphics to draw on
+	 * @param entity The entity to draw
+	 */
+	public static void drawEntity(Graphics2D g, Entity2D entity)
+	{
+		Image texture = getTexture(entity);
+		Shape shape = getCachedShape(entity);
+		if (texture == null)
+		{
+			g.fill(shape);
+		}
+		else
+		{
+			// Draw shape and texture
+			Paint originalPaint = g.getPaint();
+			TexturePaint texturePaint = paints.get(texture);
+			if (texturePaint == null)
+			{
+				texturePaint = new TexturePaint(
+						GraphicsTools.bufferImage(texture), new Rectangle(0,
+								0, GamePanel.TEXTURE_SIZE,
+								GamePanel.TEXTURE_SIZE));
+				paints.put(texture, texturePaint);
+			}
+			g.setPaint(texturePaint);
+			g.fill(shape);
+			g.setPaint(originalPaint);
+			g.setColor(Color.DARK_GRAY);
+			g.draw(shape);
+		}
+	}
+
+	/**
+	 * Gets the shape of an entity, reusing the last one built for it if the
+	 * entity doesn't move and hasn't been moved since
+	 * 
+	 * @param entity The entity
+	 * @return a Shape object representing the entity, which must not be
+	 *         changed
+	 */
+	public static Shape getCachedShape(Entity2D entity)
+	{
+		if (entity.hasPhysics())
+		{
+			return getShape(entity);
+		}
+		CachedShape cached = shapes.get(entity);
+		if (cached == null || cached.version != entity.getGeometryVersion())
+		{
+			cached = new CachedShape(getShape(entity),
+					entity.getGeometryVersion());
+			shapes.put(entity, cached);
+		}
+		return cached.shape;
+	}
+
+	/**
+	 * Gets a Graphics2D shape representing an entity
+	 * 
+	 * @param entity The entity
+	 * @return a Shape object representing the entity
+	 */
+	public static Shape getShape(Entity2D entity)
+	{
+		if (entity instanceof Circle2D)
+		{
+			Circle2D circle = (Circle2D) entity;
+			int radius = circle.getRadius();
+			return new Ellipse2D.Double(circle.loc.x - radius, circle.loc.y
+					- radius, radius * 2, radius * 2);
+		}
+		if (entity instanceof AABB2D)
+		{
+			AABB2D aabb = (AABB2D) entity;
+			return new java.awt.geom.Rectangle2D.Double(aabb.p1.x, aabb.p1.y,
+					aabb.getWidth(), aabb.getHeight());
+		}
+		if (entity instanceof Rectangle2D)
+		{
+			Vector2D[] corners = ((Rectangle2D) entity).getCorners();
+			int xPoly[] = new int[corners.length];
+			int yPoly[] = new int[corners.length];
+			for (int corner = 0; corner < corners.length; corner++)
+			{
+				xPoly[corner] = (int) corners[corner].x;
+				yPoly[corner] = (int) corners[corner].y;
+			}
+			return new Polygon(xPoly, yPoly, xPoly.length);
+		}
+		// Fall back to the bounds for any other kind of entity
+		AABB2D bounds = entity.getBoundingBox();
+		return new java.awt.geom.Rectangle2D.Double(bounds.p1.x, bounds.p1.y,
+				bounds.getWidth(), bounds.getHeight());
+	}
+
+	/**
+	 * Gets the texture that an entity is drawn with
+	 * 
+	 * @param entity The entity
+	 * @return the texture, or null if it should be filled with the current
+	 *         color
+	 */
+	public static Image getTexture(Entity2D entity)
+	{
+		if (entity instanceof Target2D)
+		{
+			return GamePanel.brickTexture;
+		}
+		if (entity instanceof Rectangle2D)
+		{
+			return GamePanel.rockTexture;
+		}
+		return GamePanel.metalTexture;
+	}
+
+	/**
+	 * A shape along with the version of the geometry it was built from
+	 */
+	private static class CachedShape
+	{
+		private final Shape shape;
+		private final int version;
+
+		CachedShape(Shape shape, int version)
+		{
+			this.shape = shape;
+			this.version = version;
+		}
+	}
+}
@@ -1,11 +1,12 @@
 package game.level;
 
-import game.TrebuchetDemolition;
+import game.physics.PhysicsEngine;
 import game.physics.entity.AABB2D;
 import game.physics.entity.Circle2D;
 import game.physics.entity.Entity2D;
 import game.physics.entity.Rectangle2D;
 import game.physics.entity.Target2D;
+import game.physics.util.GameLogger;
 import game.physics.util.Vector2D;
 
 import java.io.File;
@@ -13,6 +14,7 @@ import java.io.FileOutputStream;
 import java.util.Properties;
 import java.util.StringTokenizer;
 import java.util.Vector;
+import java.util.logging.Logger;
 
 /**
  * Represents a game level
@@ -22,6 +24,7 @@ import java.util.Vector;
  */
 public class Level
 {
+	private static final Logger LOGGER = GameLogger.LOGGER;
 
 	private String name;
 	private File file;
@@ -57,21 +60,22 @@ public class Level
 	{
 		try
 		{
-			if (metadata.getProperty("highscore") == null
-					|| Integer.parseInt(metadata.getProperty("highscore")) > score)
+			int highscore = getHighscore();
+			if (highscore == -1 || highscore > score)
 			{
 				metadata.setProperty("highscore", score + "");
+				metadata.setProperty("highscoreversion", PhysicsEngine.VERSION
+						+ "");
 			}
 			metadata.store(new FileOutputStream(file),
 					"This level has been played!");
 		}
 		catch (Exception e)
 		{
-			TrebuchetDemolition.LOGGER
-					.warning("Failed to save highscore information (file tampering?): "
-							+ e.getMessage());
+			LOGGER.warning("Failed to save highscore information (file tampering?): "
+					+ e.getMessage());
 		}
-		TrebuchetDemolition.LOGGER.info("Saved level data");
+		LOGGER.info("Saved level data");
 	}
 
 	/**
@@ -144,16 +148,15 @@ public class Level
 			}
 			catch (Exception e)
 			{
-				TrebuchetDemolition.LOGGER
-						.warning("Failed to load an entity in level: "
-								+ e.getMessage());
+				LOGGER.warning("Failed to load an entity in level: "
+						+ e.getMessage());
 			}
 		}
 
 		// Check if the level has a valid target
 		if (!hasTarget)
 		{
-			TrebuchetDemolition.LOGGER.info("Couldn't load level \""
+			LOGGER.info("Couldn't load level \""
 					+ metadata.getProperty("name") + "\", has no target");
 			throw new Exception("No target in level");
 		}
@@ -255,6 +258,44 @@ public class Level
 		return entities;
 	}
 
+	/**
+	 * Gets a Vector of the entities, where the static geometry is shared
+	 * instead of cloned. Rectangles and AABBs without physics are never moved
+	 * by the physics engine, so many engines can run on the same ones at once
+	 * 
+	 * @return the cloned entities and the shared static geometry in a Vector
+	 */
+	public Vector<Entity2D> getEntitiesCloneSharingStatic()
+	{
+		Vector<Entity2D> entities = new Vector<Entity2D>();
+		for (Entity2D entity : levelEntities)
+		{
+			if (isStaticGeometry(entity))
+			{
+				entities.add(entity);
+			}
+			else
+			{
+				entities.add(entity.clone());
+			}
+		}
+		return entities;
+	}
+
+	/**
+	 * Checks if an entity is geometry that the physics engine never changes.
+	 * Circles are left out, since a circle writes its bounds again every time
+	 * they are asked for
+	 * 
+	 * @param entity The entity to check
+	 * @return whether the entity can be shared between physics engines
+	 */
+	public static boolean isStaticGeometry(Entity2D entity)
+	{
+		return !entity.hasPhysics()
+				&& (entity instanceof AABB2D || entity instanceof Rectangle2D);
+	}
+
 	/**
 	 * Gets the score of this level
 	 * 
@@ -265,6 +306,33 @@ public class Level
 		return score;
 	}
 
+	/**
+	 * Gets the best score saved for this level. Scores saved by a different
+	 * version of the physics engine don't count, since the same shot can take
+	 * a different amount of time to win in it
+	 * 
+	 * @return the highscore, or -1 if there is none for this version
+	 */
+	public int getHighscore()
+	{
+		try
+		{
+			String highscore = metadata.getProperty("highscore");
+			String version = metadata.getProperty("highscoreversion");
+			if (highscore != null && version != null
+					&& Integer.parseInt(version) == PhysicsEngine.VERSION)
+			{
+				return Integer.parseInt(highscore);
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			LOGGER.warning("Failed to read highscore (file tampering?): "
+					+ e.getMessage());
+		}
+		return -1;
+	}
+
 	/**
 	 * Sets the score of this level
 	 * 
@@ -274,4 +342,17 @@ public class Level
 	{
 		this.score = score;
 	}
+
+	/**
+	 * Works out the score for a shot, which is lower for shots with less power
+	 * that hit the target sooner
+	 * 
+	 * @param elapsedMillis The time since the shot was fired in milliseconds
+	 * @param power The power the shot was fired at
+	 * @return the score
+	 */
+	public static int computeScore(long elapsedMillis, int power)
+	{
+		return (int) (elapsedMillis * power * power) / 100000;
+	}
 }
@@ -1,6 +1,7 @@
 package game.level;
 
 import game.TrebuchetDemolition;
+import game.graphics.EntityRenderer;
 import game.physics.PhysicsEngine;
 import game.physics.entity.Entity2D;
 import game.physics.entity.Rectangle2D;
@@ -14,7 +15,6 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.RenderingHints;
-import java.awt.Shape;
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -154,11 +154,11 @@ public class LevelEditor extends JFrame
 				// Draw every entity from the virtual physics engine
 				for (Entity2D e : virtualEngine.getEntities())
 				{
-					e.drawEntity(g);
+					EntityRenderer.drawEntity(g, e);
 					if (e.equals(selectedEntity))
 					{
 						g.setColor(Color.RED);
-						g.draw(e.getShape());
+						g.draw(EntityRenderer.getCachedShape(e));
 						g.setColor(Color.BLACK);
 					}
 				}
@@ -271,17 +271,9 @@ public class LevelEditor extends JFrame
 			public void mousePressed(MouseEvent event)
 			{
 				Point point = event.getPoint();
-				Entity2D entity = null;
 				// Check if any entities are inside the click, if there are then
-				// start dragging them
-				for (Entity2D e : virtualEngine.getEntities())
-				{
-					Shape shape = e.getShape();
-					if (shape.contains(point))
-					{
-						entity = e;
-					}
-				}
+				// start dragging the top one
+				Entity2D entity = getEntityAt(point);
 
 				// Set the buttons to enabled or disabled based on if an entity
 				// is selected
@@ -372,15 +364,7 @@ public class LevelEditor extends JFrame
 				if (creating == -1)
 				{
 					Point point = event.getPoint();
-					Entity2D entity = null;
-					for (Entity2D e : virtualEngine.getEntities())
-					{
-						Shape shape = e.getShape();
-						if (shape.contains(point))
-						{
-							entity = e;
-						}
-					}
+					Entity2D entity = getEntityAt(point);
 					if (entity != null)
 					{
 						drawPanel.setCursor(HAND_CURSOR);
@@ -502,12 +486,11 @@ public class LevelEditor extends JFrame
 							if (currentEntity instanceof Rectangle2D)
 							{
 								Rectangle2D rect = (Rectangle2D) currentEntity;
-								double angle = rect.angle;
-								rect.rotate(-angle);
-								entityDesc = "rect," + rect.p1.x + ","
-										+ rect.p1.y + "," + rect.p4.x + ","
-										+ rect.p4.y + "," + angle;
-								rect.rotate(angle);
+								entityDesc = "rect," + rect.getUnrotatedLeft()
+										+ "," + rect.getUnrotatedTop() + ","
+										+ rect.getUnrotatedRight() + ","
+										+ rect.getUnrotatedBottom() + ","
+										+ rect.angle;
 							}
 							else if (currentEntity instanceof Target2D)
 							{
@@ -600,4 +583,21 @@ public class LevelEditor extends JFrame
 			}
 		});
 	}
+
+	/**
+	 * Gets the entity drawn on top at a point
+	 * 
+	 * @param point The point to check
+	 * @return the top entity at the point, or null if there isn't one
+	 */
+	private Entity2D getEntityAt(Point point)
+	{
+		Vector<Entity2D> found = virtualEngine.getEntitiesAt(point.x, point.y);
+		if (found.isEmpty())
+		{
+			return null;
+		}
+		// Entities added later are drawn over the earlier ones
+		return found.lastElement();
+	}
 }
@@ -1,7 +1,7 @@
 package game.level;
 
-import game.TrebuchetDemolition;
 import game.physics.entity.Entity2D;
+import game.physics.util.GameLogger;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -9,6 +9,7 @@ import java.io.FilenameFilter;
 import java.util.ArrayList;
 import java.util.Properties;
 import java.util.Vector;
+import java.util.logging.Logger;
 
 /**
  * Manages loaded levels, and loads them
@@ -18,6 +19,8 @@ import java.util.Vector;
  */
 public class LevelManager
 {
+	private static final Logger LOGGER = GameLogger.LOGGER;
+
 	public static ArrayList<Level> levels = new ArrayList<Level>();
 
 	/**
@@ -55,12 +58,11 @@ public class LevelManager
 			}
 			catch (Exception e)
 			{
-				TrebuchetDemolition.LOGGER
-						.warning("Error while loading level: " + e.getMessage());
+				LOGGER.warning("Error while loading level: " + e.getMessage());
 			}
 
 		}
-		TrebuchetDemolition.LOGGER.info("Loaded all levels");
+		LOGGER.info("Loaded all levels");
 	}
 
 	/**
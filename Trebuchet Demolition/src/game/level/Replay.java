@@ -0,0 +1,411 @@
+package game.level;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.StringTokenizer;
+
+/**
+ * A recording of the shots fired at a level, and of the projectiles removed,
+ * which can be played back by a ReplayPlayer. Shots and removals are stored by
+ * the update they happened before rather than by time, so a replay always
+ * plays out the same way on the same version of the physics engine. Replays
+ * are saved with Java Properties, the same way levels are
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class Replay
+{
+	private final String levelID;
+	private final int engineVersion;
+	private final int width;
+	private final int height;
+	private final List<Shot> shots;
+	private final List<Removal> removals;
+	private long wonTick;
+
+	/**
+	 * Constructs an empty replay
+	 * 
+	 * @param levelID The name of the file of the level played
+	 * @param engineVersion The version of the physics engine it was played on
+	 * @param width The width of the world in pixels
+	 * @param height The height of the world in pixels
+	 */
+	public Replay(String levelID, int engineVersion, int width, int height)
+	{
+		this.levelID = levelID;
+		this.engineVersion = engineVersion;
+		this.width = width;
+		this.height = height;
+		this.shots = new ArrayList<Shot>();
+		this.removals = new ArrayList<Removal>();
+		this.wonTick = -1;
+	}
+
+	/**
+	 * Records a shot
+	 * 
+	 * @param tick The amount of updates done before the shot was fired
+	 * @param power The power it was fired at
+	 * @param angle The angle it was fired at
+	 */
+	public void addShot(long tick, int power, int angle)
+	{
+		shots.add(new Shot(tick, power, angle));
+	}
+
+	/**
+	 * Records the last projectile fired being removed. It is stored with the
+	 * amount of shots fired before it, so it is played back in the same place
+	 * among shots fired in the same update
+	 * 
+	 * @param tick The amount of updates done before it was removed
+	 */
+	public void addRemoval(long tick)
+	{
+		removals.add(new Removal(tick, shots.size()));
+	}
+
+	/**
+	 * Removes the shots fired and the removals made at or after an update,
+	 * such as when the game is wound back to before they happened
+	 * 
+	 * @param tick The amount of updates done before the first shot or removal
+	 *            to remove
+	 */
+	public void removeShotsFrom(long tick)
+	{
+		while (!shots.isEmpty()
+				&& shots.get(shots.size() - 1).getTick() >= tick)
+		{
+			shots.remove(shots.size() - 1);
+		}
+		while (!removals.isEmpty()
+				&& removals.get(removals.size() - 1).getTick() >= tick)
+		{
+			removals.remove(removals.size() - 1);
+		}
+	}
+
+	/**
+	 * Gets the shots, in the order they were fired
+	 * 
+	 * @return the shots, which can't be changed
+	 */
+	public List<Shot> getShots()
+	{
+		return Collections.unmodifiableList(shots);
+	}
+
+	/**
+	 * Gets the removals of the last projectile fired, in the order they were
+	 * made
+	 * 
+	 * @return the removals, which can't be changed
+	 */
+	public List<Removal> getRemovals()
+	{
+		return Collections.unmodifiableList(removals);
+	}
+
+	/**
+	 * Gets the last update in which a shot was fired or a projectile removed
+	 * 
+	 * @return the amount of updates done before the last shot or removal, or
+	 *         0 if there were none
+	 */
+	public long getLastEventTick()
+	{
+		long tick = 0;
+		if (!shots.isEmpty())
+		{
+			tick = shots.get(shots.size() - 1).getTick();
+		}
+		if (!removals.isEmpty())
+		{
+			tick = Math.max(tick, removals.get(removals.size() - 1).getTick());
+		}
+		return tick;
+	}
+
+	/**
+	 * Gets the score the replay finished with
+	 * 
+	 * @param tickRate The time between updates in milliseconds
+	 * @return the score, or 0 if the level was never won
+	 */
+	public int getScore(int tickRate)
+	{
+		if (wonTick == -1 || shots.isEmpty())
+		{
+			return 0;
+		}
+		Shot lastShot = shots.get(shots.size() - 1);
+		return Level.computeScore((wonTick - lastShot.getTick()) * tickRate,
+				lastShot.getPower());
+	}
+
+	/**
+	 * Saves the replay into a file
+	 * 
+	 * @param file The file to save into
+	 * @throws IOException when the file can't be written
+	 */
+	public void save(File file) throws IOException
+	{
+		Properties properties = new Properties();
+		properties.setProperty("level", levelID);
+		properties.setProperty("version", engineVersion + "");
+		properties.setProperty("width", width + "");
+		properties.setProperty("height", height + "");
+		properties.setProperty("wontick", wonTick + "");
+		StringBuilder shotData = new StringBuilder();
+		for (Shot shot : shots)
+		{
+			shotData.append(shot.getTick()).append(',').append(shot.getPower())
+					.append(',').append(shot.getAngle()).append(':');
+		}
+		properties.setProperty("shots", shotData.toString());
+		StringBuilder removalData = new StringBuilder();
+		for (Removal removal : removals)
+		{
+			removalData.append(removal.getTick()).append(',')
+					.append(removal.getShotsBefore()).append(':');
+		}
+		properties.setProperty("removals", removalData.toString());
+
+		OutputStream out = new FileOutputStream(file);
+		try
+		{
+			properties.store(out, "Trebuchet Demolition replay");
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	/**
+	 * Loads a replay from a file
+	 * 
+	 * @param file The file to load from
+	 * @return the replay
+	 * @throws IOException when the file can't be read or isn't a replay
+	 */
+	public static Replay load(File file) throws IOException
+	{
+		Properties properties = new Properties();
+		InputStream in = new FileInputStream(file);
+		try
+		{
+			properties.load(in);
+		}
+		finally
+		{
+			in.close();
+		}
+
+		try
+		{
+			Replay replay = new Replay(properties.getProperty("level"),
+					Integer.parseInt(properties.getProperty("version")),
+					Integer.parseInt(properties.getProperty("width")),
+					Integer.parseInt(properties.getProperty("height")));
+			replay.setWonTick(Long.parseLong(properties.getProperty(
+					"wontick", "-1")));
+			StringTokenizer st = new StringTokenizer(properties.getProperty(
+					"shots", ""), ":");
+			while (st.hasMoreTokens())
+			{
+				String[] shotData = st.nextToken().replaceAll(" ", "")
+						.split(",");
+				replay.addShot(Long.parseLong(shotData[0]),
+						Integer.parseInt(shotData[1]),
+						Integer.parseInt(shotData[2]));
+			}
+			// Replays saved before removals were recorded have none
+			st = new StringTokenizer(properties.getProperty("removals", ""),
+					":");
+			while (st.hasMoreTokens())
+			{
+				String[] removalData = st.nextToken().replaceAll(" ", "")
+						.split(",");
+				replay.removals.add(new Removal(Long
+						.parseLong(removalData[0]), Integer
+						.parseInt(removalData[1])));
+			}
+			return replay;
+		}
+		catch (RuntimeException e)
+		{
+			throw new IOException("Invalid replay " + file.getName() + ": "
+					+ e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Gets the name of the file of the level played
+	 * 
+	 * @return the name of the level's file
+	 */
+	public String getLevelID()
+	{
+		return levelID;
+	}
+
+	/**
+	 * Gets the version of the physics engine the replay was recorded on
+	 * 
+	 * @return the version
+	 */
+	public int getEngineVersion()
+	{
+		return engineVersion;
+	}
+
+	/**
+	 * Gets the width of the world the replay was recorded in
+	 * 
+	 * @return the width in pixels
+	 */
+	public int getWidth()
+	{
+		return width;
+	}
+
+	/**
+	 * Gets the height of the world the replay was recorded in
+	 * 
+	 * @return the height in pixels
+	 */
+	public int getHeight()
+	{
+		return height;
+	}
+
+	/**
+	 * Gets the update in which the level was won
+	 * 
+	 * @return the amount of updates done when the level was won, or -1 if it
+	 *         wasn't
+	 */
+	public long getWonTick()
+	{
+		return wonTick;
+	}
+
+	/**
+	 * Sets the update in which the level was won
+	 * 
+	 * @param wonTick The amount of updates done when the level was won, or -1
+	 *            if it wasn't
+	 */
+	public void setWonTick(long wonTick)
+	{
+		this.wonTick = wonTick;
+	}
+
+	/**
+	 * A shot in a replay
+	 */
+	public static class Shot
+	{
+		private final long tick;
+		private final int power;
+		private final int angle;
+
+		/**
+		 * Constructs a shot
+		 * 
+		 * @param tick The amount of updates done before the shot was fired
+		 * @param power The power it was fired at
+		 * @param angle The angle it was fired at
+		 */
+		public Shot(long tick, int power, int angle)
+		{
+			this.tick = tick;
+			this.power = power;
+			this.angle = angle;
+		}
+
+		/**
+		 * Gets the amount of updates done before the shot was fired
+		 * 
+		 * @return the amount of updates
+		 */
+		public long getTick()
+		{
+			return tick;
+		}
+
+		/**
+		 * Gets the power the shot was fired at
+		 * 
+		 * @return the power
+		 */
+		public int getPower()
+		{
+			return power;
+		}
+
+		/**
+		 * Gets the angle the shot was fired at
+		 * 
+		 * @return the angle in degrees
+		 */
+		public int getAngle()
+		{
+			return angle;
+		}
+	}
+
+	/**
+	 * A removal of the last projectile fired in a replay
+	 */
+	public static class Removal
+	{
+		private final long tick;
+		private final int shotsBefore;
+
+		/**
+		 * Constructs a removal
+		 * 
+		 * @param tick The amount of updates done before it was removed
+		 * @param shotsBefore The amount of shots fired before it was removed
+		 */
+		public Removal(long tick, int shotsBefore)
+		{
+			this.tick = tick;
+			this.shotsBefore = shotsBefore;
+		}
+
+		/**
+		 * Gets the amount of updates done before the projectile was removed
+		 * 
+		 * @return the amount of updates
+		 */
+		public long getTick()
+		{
+			return tick;
+		}
+
+		/**
+		 * Gets the amount of shots fired before the projectile was removed
+		 * 
+		 * @return the amount of shots
+		 */
+		public int getShotsBefore()
+		{
+			return shotsBefore;
+		}
+	}
+}
@@ -0,0 +1,405 @@
+package game.physics;
+
+import game.physics.entity.AABB2D;
+import game.physics.entity.Circle2D;
+import game.physics.entity.Entity2D;
+import game.physics.entity.Projectile2D;
+import game.physics.entity.Target2D;
+import game.physics.util.CollisionType;
+import game.physics.util.ContinuousCollision;
+import game.physics.util.Vector2D;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds every power and angle that hits a target without touching anything
+ * else first, without running the physics engine. A projectile in free flight
+ * only has gravity acting on it, so where it is after any amount of updates
+ * can be worked out directly, and only the shots that reach a target have to
+ * be followed update by update to check that nothing is in the way
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class BallisticSolver
+{
+	/**
+	 * The most power a shot can be fired with
+	 */
+	public static final int MAX_POWER = 100;
+	/**
+	 * The largest angle a shot can be fired at
+	 */
+	public static final int MAX_ANGLE = 180;
+
+	private final int width;
+	private final int height;
+	private final double gravity;
+	private final Vector2D launchPoint;
+	private final int radius;
+
+	/**
+	 * Constructs a solver for shots fired in a physics engine
+	 * 
+	 * @param engine The physics engine, which gives the size of the world,
+	 *            the launch point and whether there is gravity
+	 */
+	public BallisticSolver(PhysicsEngine engine)
+	{
+		this.width = engine.getWidth();
+		this.height = engine.getHeight();
+		// Gravity only pulls straight down
+		this.gravity = engine.gravity ? PhysicsEngine.GRAVITY_CONSTANT.y : 0;
+		this.launchPoint = engine.getLaunchPoint();
+		this.radius = PhysicsEngine.PROJECTILE_RADIUS;
+	}
+
+	/**
+	 * Finds every shot that hits a target before it touches anything else or
+	 * leaves the world. Everything that isn't a target or a projectile is in
+	 * the way, wherever it is now
+	 * 
+	 * @param entities The entities in the level
+	 * @return the shots that hit a target, by angle and then by power
+	 */
+	public List<ShotSolution> solve(List<Entity2D> entities)
+	{
+		List<Target2D> targets = new ArrayList<Target2D>();
+		List<Entity2D> obstacles = new ArrayList<Entity2D>();
+		for (Entity2D entity : entities)
+		{
+			if (entity instanceof Target2D)
+			{
+				targets.add((Target2D) entity);
+			}
+			else if (!(entity instanceof Projectile2D))
+			{
+				obstacles.add(entity);
+			}
+		}
+
+		double[] targetBounds = boundsOf(targets);
+		double[] obstacleBounds = boundsOf(obstacles);
+
+		// The probe stands in for the projectile, so that overlaps are found
+		// in the same way as in the engine
+		Circle2D probe = new Circle2D(new Vector2D(), Vector2D.ZERO, radius);
+		List<ShotSolution> solutions = new ArrayList<ShotSolution>();
+		for (int angle = 0; angle <= MAX_ANGLE; angle++)
+		{
+			for (int power = 1; power <= MAX_POWER; power++)
+			{
+				Vector2D vel = PhysicsEngine.getLaunchVelocity(power, angle);
+				int reach = -1;
+				for (Target2D target : targets)
+				{
+					int tick = firstOverlap(vel.x, vel.y, target);
+					if (tick != -1 && (reach == -1 || tick < reach))
+					{
+						reach = tick;
+					}
+				}
+				if (reach != -1)
+				{
+					int ticks = follow(vel.x, vel.y, reach, targets,
+							targetBounds, obstacles, obstacleBounds, probe);
+					if (ticks != -1)
+					{
+						solutions.add(new ShotSolution(power, angle, ticks));
+					}
+				}
+			}
+		}
+		return solutions;
+	}
+
+	/**
+	 * Finds the shot with the lowest score that hits a target
+	 * 
+	 * @param entities The entities in the level
+	 * @param tickRate The time between updates in milliseconds
+	 * @return the shot with the lowest score, and then the fewest updates, or
+	 *         null if no shot hits a target
+	 */
+	public ShotSolution solveCheapest(List<Entity2D> entities, int tickRate)
+	{
+		return ShotSolution.findCheapest(solve(entities), tickRate);
+	}
+
+	/**
+	 * Finds the first update after which a projectile in free flight overlaps
+	 * a target. After k updates, the projectile is at
+	 * x - k * vx and y - k * vy + gravity * k * (k + 1) / 2, so each side of
+	 * the target is crossed at the roots of a line or a parabola
+	 * 
+	 * @param vx The x component of the launch velocity
+	 * @param vy The y component of the launch velocity
+	 * @param target The target
+	 * @return the amount of updates, or -1 if it lands first
+	 */
+	private int firstOverlap(double vx, double vy, AABB2D target)
+	{
+		// The projectile hits a target by its bounds
+		double minX = target.p1.x - radius;
+		double maxX = target.p2.x + radius;
+		double minY = target.p1.y - radius;
+		double maxY = target.p2.y + radius;
+
+		// Find when it is between the sides of the target
+		double first = 0;
+		double last = landingTick(vy);
+		if (vx == 0)
+		{
+			if (launchPoint.x < minX || launchPoint.x > maxX)
+				return -1;
+		}
+		else
+		{
+			double enter = (launchPoint.x - minX) / vx;
+			double exit = (launchPoint.x - maxX) / vx;
+			first = Math.max(first, Math.min(enter, exit));
+			last = Math.min(last, Math.max(enter, exit));
+		}
+
+		// Then find the first update in that range where it is also between
+		// the top and the bottom. It is above the bottom between two updates,
+		// and below the top outside of two other updates
+		double[] aboveBottom = solveHeight(vy, maxY);
+		double[] aboveTop = solveHeight(vy, minY);
+		if (aboveBottom == null)
+		{
+			return -1;
+		}
+		first = Math.max(first, aboveBottom[0]);
+		last = Math.min(last, aboveBottom[1]);
+		if (aboveTop != null)
+		{
+			// Try before it rises past the top, then after it falls back down
+			int tick = firstTickInRange(first, Math.min(last, aboveTop[0]));
+			if (tick != -1)
+			{
+				return tick;
+			}
+			first = Math.max(first, aboveTop[1]);
+		}
+		return firstTickInRange(first, last);
+	}
+
+	/**
+	 * Finds the range of updates after which a projectile in free flight is
+	 * higher on the screen than a height, which is between the two updates
+	 * where it crosses the height
+	 * 
+	 * @param vy The y component of the launch velocity
+	 * @param height The y coordinate to cross
+	 * @return the first and last update where it is higher than the height,
+	 *         or null if it never is
+	 */
+	private double[] solveHeight(double vy, double height)
+	{
+		// Solve gravity / 2 * k^2 + (gravity / 2 - vy) * k + y = height
+		double a = gravity / 2;
+		double b = gravity / 2 - vy;
+		double c = launchPoint.y - height;
+		if (a == 0)
+		{
+			if (b == 0)
+				return c <= 0 ? new double[] { Double.NEGATIVE_INFINITY,
+						Double.POSITIVE_INFINITY } : null;
+			double cross = -c / b;
+			return b > 0 ? new double[] { Double.NEGATIVE_INFINITY, cross }
+					: new double[] { cross, Double.POSITIVE_INFINITY };
+		}
+		double discriminant = b * b - 4 * a * c;
+		if (discriminant < 0)
+		{
+			return null;
+		}
+		double root = Math.sqrt(discriminant);
+		return new double[] { (-b - root) / (2 * a), (-b + root) / (2 * a) };
+	}
+
+	/**
+	 * Finds the first whole update in a range
+	 * 
+	 * @param first The start of the range
+	 * @param last The end of the range
+	 * @return the first whole update, or -1 if there are none
+	 */
+	private static int firstTickInRange(double first, double last)
+	{
+		double tick = Math.ceil(first);
+		return tick <= last ? (int) tick : -1;
+	}
+
+	/**
+	 * Finds the last update before a projectile in free flight reaches the
+	 * bottom of the world
+	 * 
+	 * @param vy The y component of the launch velocity
+	 * @return the amount of updates, which is capped for shots that never land
+	 */
+	private double landingTick(double vy)
+	{
+		double floor = height - radius - launchPoint.y;
+		double cap = width + height;
+		if (gravity == 0)
+		{
+			return vy < 0 ? Math.min(floor / -vy, cap) : cap;
+		}
+		// Solve gravity / 2 * k^2 + (gravity / 2 - vy) * k = floor for k
+		double a = gravity / 2;
+		double b = gravity / 2 - vy;
+		double root = (-b + Math.sqrt(b * b + 4 * a * floor)) / (2 * a);
+		return Math.min(root, cap);
+	}
+
+	/**
+	 * Follows a shot update by update in the same order as the engine, to
+	 * check that it doesn't touch anything or leave the world before it hits
+	 * a target
+	 * 
+	 * @param vx The x component of the launch velocity
+	 * @param vy The y component of the launch velocity
+	 * @param reach The update after which it overlaps a target
+	 * @param targets The targets in the level
+	 * @param targetBounds The bounds around the targets from boundsOf()
+	 * @param obstacles Everything else in the level
+	 * @param obstacleBounds The bounds around the obstacles from boundsOf()
+	 * @param probe A circle the size of the projectile to check overlaps with
+	 * @return the amount of updates until the engine finds the hit, or -1 if
+	 *         something is in the way
+	 */
+	private int follow(double vx, double vy, int reach,
+			List<Target2D> targets, double[] targetBounds,
+			List<Entity2D> obstacles, double[] obstacleBounds, Circle2D probe)
+	{
+		double x = launchPoint.x;
+		double y = launchPoint.y;
+		// Go one update further than needed, in case of rounding in reach
+		for (int tick = 1; tick <= reach + 2; tick++)
+		{
+			probe.loc.set(x, y);
+			if (overlapsAny(probe, targets, targetBounds))
+				return tick;
+			if (overlapsAny(probe, obstacles, obstacleBounds))
+				return -1;
+			if (x - radius < 0 || y - radius < 0 || x + radius > width
+					|| y + radius > height)
+				return -1;
+
+			vy -= gravity;
+			// A fast projectile stops at whatever it would hit first, and the
+			// hit is found in the next update
+			double dx = -vx;
+			double dy = -vy;
+			if (dx * dx + dy * dy > radius * radius)
+			{
+				double targetImpact = firstImpact(x, y, dx, dy, targets,
+						targetBounds);
+				double obstacleImpact = firstImpact(x, y, dx, dy, obstacles,
+						obstacleBounds);
+				if (targetImpact < obstacleImpact)
+					return tick + 1;
+				if (obstacleImpact < ContinuousCollision.NO_IMPACT)
+					return -1;
+			}
+			x += dx;
+			y += dy;
+		}
+		return -1;
+	}
+
+	/**
+	 * Stores the bounds around some entities, grown by the radius of the
+	 * projectile, so that most of them can be skipped without checking their
+	 * exact shape
+	 * 
+	 * @param entities The entities
+	 * @return the left, top, right and bottom of each entity in turn
+	 */
+	private double[] boundsOf(List<? extends Entity2D> entities)
+	{
+		double[] bounds = new double[entities.size() * 4];
+		for (int index = 0; index < entities.size(); index++)
+		{
+			AABB2D box = entities.get(index).getBoundingBox();
+			bounds[index * 4] = box.p1.x - radius;
+			bounds[index * 4 + 1] = box.p1.y - radius;
+			bounds[index * 4 + 2] = box.p2.x + radius;
+			bounds[index * 4 + 3] = box.p2.y + radius;
+		}
+		return bounds;
+	}
+
+	/**
+	 * Checks if the bounds around an entity overlap a box
+	 * 
+	 * @param bounds The bounds from boundsOf()
+	 * @param index The index of the entity
+	 * @param minX The left of the box
+	 * @param minY The top of the box
+	 * @param maxX The right of the box
+	 * @param maxY The bottom of the box
+	 * @return whether they overlap
+	 */
+	private static boolean nearBounds(double[] bounds, int index, double minX,
+			double minY, double maxX, double maxY)
+	{
+		return maxX >= bounds[index * 4] && minY <= bounds[index * 4 + 3]
+				&& minX <= bounds[index * 4 + 2]
+				&& maxY >= bounds[index * 4 + 1];
+	}
+
+	/**
+	 * Checks if a probe overlaps any of the given entities
+	 * 
+	 * @param probe The probe
+	 * @param entities The entities to check
+	 * @param bounds The bounds around the entities from boundsOf()
+	 * @return whether it overlaps any of them
+	 */
+	private static boolean overlapsAny(Circle2D probe,
+			List<? extends Entity2D> entities, double[] bounds)
+	{
+		double x = probe.loc.x;
+		double y = probe.loc.y;
+		for (int index = 0; index < entities.size(); index++)
+		{
+			if (nearBounds(bounds, index, x, y, x, y)
+					&& probe.getCollisionState(entities.get(index))
+							!= CollisionType.NO_COLLISION)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Finds the earliest time of impact of the projectile with any of the
+	 * given entities
+	 * 
+	 * @param x The x coordinate of the projectile
+	 * @param y The y coordinate of the projectile
+	 * @param dx How far it moves in x in the update
+	 * @param dy How far it moves in y in the update
+	 * @param entities The entities it might hit
+	 * @param bounds The bounds around the entities from boundsOf()
+	 * @return the earliest time of impact, or NO_IMPACT
+	 */
+	private double firstImpact(double x, double y, double dx, double dy,
+			List<? extends Entity2D> entities, double[] bounds)
+	{
+		double impact = ContinuousCollision.NO_IMPACT;
+		for (int index = 0; index < entities.size(); index++)
+		{
+			if (nearBounds(bounds, index, Math.min(x, x + dx), Math.min(y, y
+					+ dy), Math.max(x, x + dx), Math.max(y, y + dy)))
+			{
+				impact = Math.min(impact, ContinuousCollision.timeOfImpact(x,
+						y, radius, dx, dy, entities.get(index)));
+			}
+		}
+		return impact;
+	}
+}
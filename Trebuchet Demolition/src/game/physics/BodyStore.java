@@ -0,0 +1,303 @@
+package game.physics;
+
+import game.physics.entity.AABB2D;
+import game.physics.entity.Circle2D;
+import game.physics.entity.Entity2D;
+import game.physics.util.IndexList;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores the positions, velocities and sizes of the moving entities in plain
+ * arrays, so that gravity, walls and movement can be done in tight loops
+ * instead of going through every entity's vectors. The entities are copied in
+ * with gather() before the loops and copied back out with scatter() after.
+ * The loops only touch the arrays, so HotSpot turns the gravity and movement
+ * loops into SIMD instructions by itself
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class BodyStore
+{
+	/**
+	 * The center of each body
+	 */
+	public double[] x, y;
+	/**
+	 * The velocity of each body, which is subtracted from the center every
+	 * update
+	 */
+	public double[] vx, vy;
+	/**
+	 * Half of the width and height of each body. For a circle, these are both
+	 * the radius
+	 */
+	public double[] halfWidth, halfHeight;
+	/**
+	 * Whether each body hit a wall in the last handleWalls()
+	 */
+	public boolean[] hitWall;
+	/**
+	 * How much of its velocity each body moves by in integrate(), which is
+	 * less than 1 when it would hit something partway through the update
+	 */
+	public double[] step;
+
+	private Entity2D[] entities;
+	private int size;
+
+	/**
+	 * Constructs an empty body store
+	 */
+	public BodyStore()
+	{
+		this.entities = new Entity2D[0];
+		this.size = 0;
+		allocate(16);
+	}
+
+	/**
+	 * Sets which entities are stored, and stores their sizes. This only has to
+	 * be called when the moving entities change
+	 * 
+	 * @param entities The entities in the physics engine
+	 * @param indices The indices of the entities to store
+	 */
+	public void rebuild(List<Entity2D> entities, IndexList indices)
+	{
+		// Don't hold on to entities which are no longer stored
+		Arrays.fill(this.entities, 0, size, null);
+		size = indices.size();
+		if (x.length < size)
+		{
+			allocate(Math.max(size, x.length * 2));
+		}
+		for (int body = 0; body < size; body++)
+		{
+			Entity2D entity = entities.get(indices.get(body));
+			this.entities[body] = entity;
+			if (entity instanceof Circle2D)
+			{
+				halfWidth[body] = ((Circle2D) entity).getRadius();
+				halfHeight[body] = halfWidth[body];
+			}
+			else
+			{
+				AABB2D bounds = entity.getBoundingBox();
+				halfWidth[body] = bounds.getWidth() / 2;
+				halfHeight[body] = bounds.getHeight() / 2;
+			}
+		}
+	}
+
+	/**
+	 * Copies the positions and velocities of the entities into the arrays
+	 */
+	public void gather()
+	{
+		for (int body = 0; body < size; body++)
+		{
+			Entity2D entity = entities[body];
+			if (entity instanceof Circle2D)
+			{
+				Circle2D circle = (Circle2D) entity;
+				x[body] = circle.loc.x;
+				y[body] = circle.loc.y;
+			}
+			else
+			{
+				AABB2D bounds = entity.getBoundingBox();
+				x[body] = bounds.p1.x + halfWidth[body];
+				y[body] = bounds.p1.y + halfHeight[body];
+			}
+			vx[body] = entity.vel.x;
+			vy[body] = entity.vel.y;
+			step[body] = 1;
+		}
+	}
+
+	/**
+	 * Copies the positions and velocities in the arrays back into the entities
+	 */
+	public void scatter()
+	{
+		for (int body = 0; body < size; body++)
+		{
+			Entity2D entity = entities[body];
+			if (entity instanceof Circle2D)
+			{
+				Circle2D circle = (Circle2D) entity;
+				circle.loc.x = x[body];
+				circle.loc.y = y[body];
+			}
+			else if (entity instanceof AABB2D)
+			{
+				AABB2D aabb = (AABB2D) entity;
+				aabb.p1.x = x[body] - halfWidth[body];
+				aabb.p1.y = y[body] - halfHeight[body];
+				aabb.p2.x = x[body] + halfWidth[body];
+				aabb.p2.y = y[body] + halfHeight[body];
+			}
+			else
+			{
+				AABB2D bounds = entity.getBoundingBox();
+				entity.translate(x[body] - halfWidth[body] - bounds.p1.x,
+						y[body] - halfHeight[body] - bounds.p1.y);
+			}
+			entity.vel.x = vx[body];
+			entity.vel.y = vy[body];
+			entity.markGeometryChanged();
+		}
+	}
+
+	/**
+	 * Bounces every body off the edges of the world, and keeps it inside.
+	 * Bodies are rarely touching a wall, so the branches are almost always
+	 * predicted and this is quicker than a branch free version that does the
+	 * bounce for every body and throws most of it away
+	 * 
+	 * @param width The width of the world in pixels
+	 * @param height The height of the world in pixels
+	 * @param restitution The bounciness of the walls
+	 */
+	public void handleWalls(int width, int height, double restitution)
+	{
+		for (int body = 0; body < size; body++)
+		{
+			boolean hit = false;
+			if (x[body] - halfWidth[body] < 0)
+			{
+				x[body] = halfWidth[body];
+				vx[body] = -vx[body] / restitution;
+				hit = true;
+			}
+			if (y[body] - halfHeight[body] < 0)
+			{
+				y[body] = halfHeight[body];
+				vy[body] = -vy[body] / restitution;
+				hit = true;
+			}
+			if (x[body] + halfWidth[body] > width)
+			{
+				x[body] = width - halfWidth[body];
+				vx[body] = -vx[body] / restitution;
+				hit = true;
+			}
+			if (y[body] + halfHeight[body] > height)
+			{
+				y[body] = height - halfHeight[body];
+				vy[body] = -vy[body] / restitution;
+				hit = true;
+			}
+			hitWall[body] = hit;
+		}
+	}
+
+	/**
+	 * Keeps every body inside the edges of the world without changing its
+	 * velocity, for when the walls have already been solved as contacts and
+	 * bouncing off them again would undo that
+	 * 
+	 * @param width The width of the world in pixels
+	 * @param height The height of the world in pixels
+	 */
+	public void clampToWalls(int width, int height)
+	{
+		for (int body = 0; body < size; body++)
+		{
+			boolean hit = false;
+			if (x[body] - halfWidth[body] < 0)
+			{
+				x[body] = halfWidth[body];
+				hit = true;
+			}
+			if (y[body] - halfHeight[body] < 0)
+			{
+				y[body] = halfHeight[body];
+				hit = true;
+			}
+			if (x[body] + halfWidth[body] > width)
+			{
+				x[body] = width - halfWidth[body];
+				hit = true;
+			}
+			if (y[body] + halfHeight[body] > height)
+			{
+				y[body] = height - halfHeight[body];
+				hit = true;
+			}
+			hitWall[body] = hit;
+		}
+	}
+
+	/**
+	 * Subtracts gravity from the velocity of every body
+	 * 
+	 * @param gravityX The x component of gravity
+	 * @param gravityY The y component of gravity
+	 */
+	public void applyGravity(double gravityX, double gravityY)
+	{
+		for (int body = 0; body < size; body++)
+		{
+			vx[body] -= gravityX;
+			vy[body] -= gravityY;
+		}
+	}
+
+	/**
+	 * Moves every body by its velocity, or by the part of it given by step
+	 * 
+	 * @param timeStep The part of an update to move by, where 1 is a whole
+	 *            update
+	 */
+	public void integrate(double timeStep)
+	{
+		for (int body = 0; body < size; body++)
+		{
+			x[body] -= vx[body] * step[body] * timeStep;
+			y[body] -= vy[body] * step[body] * timeStep;
+		}
+	}
+
+	/**
+	 * Gets the entity which a body belongs to
+	 * 
+	 * @param body The index of the body
+	 * @return the entity
+	 */
+	public Entity2D getEntity(int body)
+	{
+		return entities[body];
+	}
+
+	/**
+	 * Gets the amount of bodies stored
+	 * 
+	 * @return the amount of bodies
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Makes all the arrays bigger, keeping the entities that are stored
+	 * 
+	 * @param capacity The new capacity of the arrays
+	 */
+	private void allocate(int capacity)
+	{
+		entities = Arrays.copyOf(entities, capacity);
+		x = new double[capacity];
+		y = new double[capacity];
+		vx = new double[capacity];
+		vy = new double[capacity];
+		halfWidth = new double[capacity];
+		halfHeight = new double[capacity];
+		hitWall = new boolean[capacity];
+		step = new double[capacity];
+	}
+}
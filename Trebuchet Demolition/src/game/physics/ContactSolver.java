@@ -0,0 +1,587 @@
+package game.physics;
+
+import game.physics.entity.AABB2D;
+import game.physics.entity.Circle2D;
+import game.physics.entity.Entity2D;
+import game.physics.entity.Rectangle2D;
+import game.physics.util.Vector2D;
+
+import java.util.Arrays;
+
+/**
+ * Resolves contacts by pushing the entities in each one apart with impulses
+ * along the contact normal, a few times over every contact, so that a stack
+ * of entities settles instead of jittering. The impulses found for each pair
+ * are kept and applied again at the start of the next update, so a resting
+ * stack starts out nearly solved. The walls of the world are treated as
+ * contacts too
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class ContactSolver
+{
+	/**
+	 * How many times every contact is solved in an update
+	 */
+	private static final int ITERATIONS = 10;
+	/**
+	 * How much of the overlap beyond the slop is pushed out in each update
+	 */
+	private static final double BAUMGARTE = 0.2;
+	/**
+	 * How far entities can overlap without being pushed apart, so that
+	 * resting contacts stay touching
+	 */
+	private static final double SLOP = 0.5;
+	/**
+	 * The slowest speed that entities bounce off each other at. Anything
+	 * slower just stops, so that resting entities don't keep bouncing
+	 */
+	private static final double BOUNCE_THRESHOLD = 1;
+	/**
+	 * How much of the push between two entities can be used to stop them
+	 * sliding along each other
+	 */
+	private static final double FRICTION = 0.3;
+
+	/**
+	 * The ids used in place of an entity for each wall
+	 */
+	private static final int LEFT_WALL = -1;
+	private static final int TOP_WALL = -2;
+	private static final int RIGHT_WALL = -3;
+	private static final int BOTTOM_WALL = -4;
+
+	private int count;
+	private Entity2D[] first;
+	private Entity2D[] second;
+	private double[] normalX, normalY;
+	private double[] penetration;
+	private double[] inverseMassA, inverseMassB;
+	private double[] bounce;
+	private double[] normalImpulse, tangentImpulse;
+
+	/**
+	 * The pairs in this update, and the impulses of the pairs in the last one
+	 */
+	private PairTable pairs;
+	private PairTable lastPairs;
+	private double[] lastNormalImpulse, lastTangentImpulse;
+
+	/**
+	 * The direction out of the last rectangle a contact was found with
+	 */
+	private Vector2D outOfRectangle;
+
+	/**
+	 * Constructs an empty contact solver
+	 */
+	public ContactSolver()
+	{
+		this.count = 0;
+		this.pairs = new PairTable();
+		this.lastPairs = new PairTable();
+		this.lastNormalImpulse = new double[0];
+		this.lastTangentImpulse = new double[0];
+		this.outOfRectangle = new Vector2D();
+		allocate(16);
+	}
+
+	/**
+	 * Removes all the contacts, but keeps their impulses for the next solve()
+	 */
+	public void clear()
+	{
+		count = 0;
+		pairs.clear();
+	}
+
+	/**
+	 * Removes all the contacts and forgets their impulses, for when the
+	 * entities have been moved by something other than the solver
+	 */
+	public void reset()
+	{
+		clear();
+		lastPairs.clear();
+	}
+
+	/**
+	 * Adds a contact between two colliding entities, if they are actually
+	 * overlapping and the pair hasn't been added yet
+	 * 
+	 * @param a The moving entity
+	 * @param b The entity it is colliding with
+	 */
+	public void addContact(Entity2D a, Entity2D b)
+	{
+		if (a instanceof Circle2D && b instanceof Circle2D)
+		{
+			addCircleContact((Circle2D) a, (Circle2D) b);
+		}
+		else if (a instanceof Circle2D && b instanceof AABB2D)
+		{
+			addBoxContact((Circle2D) a, (AABB2D) b);
+		}
+		else if (a instanceof AABB2D && b instanceof AABB2D)
+		{
+			addBoxContact((AABB2D) a, (AABB2D) b);
+		}
+		else if (b instanceof Rectangle2D)
+		{
+			addRectangleContact(a, (Rectangle2D) b);
+		}
+	}
+
+	/**
+	 * Adds a contact between a moving entity and each wall it is touching
+	 * 
+	 * @param a The moving entity
+	 * @param width The width of the world in pixels
+	 * @param height The height of the world in pixels
+	 */
+	public void addWallContacts(Entity2D a, int width, int height)
+	{
+		AABB2D bounds = a.getBoundingBox();
+		double minX = bounds.p1.x;
+		double minY = bounds.p1.y;
+		double maxX = bounds.p2.x;
+		double maxY = bounds.p2.y;
+		add(a, null, LEFT_WALL, -1, 0, -minX);
+		add(a, null, TOP_WALL, 0, -1, -minY);
+		add(a, null, RIGHT_WALL, 1, 0, maxX - width);
+		add(a, null, BOTTOM_WALL, 0, 1, maxY - height);
+	}
+
+	/**
+	 * Solves every contact, changing the velocities of the entities
+	 * 
+	 * @param timeStep The part of an update that is being solved, where 1 is
+	 *            a whole update
+	 * @param restitution How much slower entities move after bouncing
+	 */
+	public void solve(double timeStep, double restitution)
+	{
+		for (int contact = 0; contact < count; contact++)
+		{
+			// Start with the impulse this pair had last time
+			int last = lastPairs.find(pairs.getKey(contact));
+			if (last >= 0)
+			{
+				normalImpulse[contact] = lastNormalImpulse[last];
+				tangentImpulse[contact] = lastTangentImpulse[last];
+				applyImpulse(contact, normalImpulse[contact],
+						tangentImpulse[contact]);
+			}
+
+			// Decide how fast the pair should be separating
+			double approach = relativeVelocity(contact, normalX[contact],
+					normalY[contact]);
+			double target = 0;
+			if (approach < -BOUNCE_THRESHOLD)
+			{
+				target = -approach / restitution;
+			}
+			double push = Math.max(penetration[contact] - SLOP, 0) * BAUMGARTE
+					/ timeStep;
+			bounce[contact] = Math.max(target, push);
+		}
+
+		for (int iteration = 0; iteration < ITERATIONS; iteration++)
+		{
+			for (int contact = 0; contact < count; contact++)
+			{
+				double mass = 1 / (inverseMassA[contact] + inverseMassB[contact]);
+
+				// Stop the pair sliding, as much as the push allows
+				double tangentX = -normalY[contact];
+				double tangentY = normalX[contact];
+				double slide = relativeVelocity(contact, tangentX, tangentY);
+				double maxFriction = FRICTION * normalImpulse[contact];
+				double oldTangent = tangentImpulse[contact];
+				tangentImpulse[contact] = Math.min(
+						Math.max(oldTangent - slide * mass, -maxFriction),
+						maxFriction);
+
+				// Push the pair apart, but never pull them together
+				double separation = relativeVelocity(contact, normalX[contact],
+						normalY[contact]);
+				double oldNormal = normalImpulse[contact];
+				normalImpulse[contact] = Math.max(oldNormal
+						+ (bounce[contact] - separation) * mass, 0);
+
+				applyImpulse(contact, normalImpulse[contact] - oldNormal,
+						tangentImpulse[contact] - oldTangent);
+			}
+		}
+
+		// Keep the impulses so the next update can start from them
+		PairTable swap = lastPairs;
+		lastPairs = pairs;
+		pairs = swap;
+		double[] swapImpulse = lastNormalImpulse;
+		lastNormalImpulse = normalImpulse;
+		normalImpulse = grow(swapImpulse, first.length);
+		swapImpulse = lastTangentImpulse;
+		lastTangentImpulse = tangentImpulse;
+		tangentImpulse = grow(swapImpulse, first.length);
+	}
+
+	/**
+	 * Gets the amount of contacts
+	 * 
+	 * @return the amount of contacts
+	 */
+	public int size()
+	{
+		return count;
+	}
+
+	/**
+	 * Adds a contact between two circles
+	 */
+	private void addCircleContact(Circle2D a, Circle2D b)
+	{
+		double dx = b.loc.x - a.loc.x;
+		double dy = b.loc.y - a.loc.y;
+		double distance = Math.sqrt(dx * dx + dy * dy);
+		if (distance == 0)
+		{
+			add(a, b, b.getID(), 0, 1, a.getRadius() + b.getRadius());
+		}
+		else
+		{
+			add(a, b, b.getID(), dx / distance, dy / distance, a.getRadius()
+					+ b.getRadius() - distance);
+		}
+	}
+
+	/**
+	 * Adds a contact between a circle and an AABB
+	 */
+	private void addBoxContact(Circle2D a, AABB2D b)
+	{
+		double x = a.loc.x;
+		double y = a.loc.y;
+		double radius = a.getRadius();
+		double closestX = Math.min(Math.max(x, b.p1.x), b.p2.x);
+		double closestY = Math.min(Math.max(y, b.p1.y), b.p2.y);
+		double dx = closestX - x;
+		double dy = closestY - y;
+		double distance = Math.sqrt(dx * dx + dy * dy);
+		if (distance > 0)
+		{
+			add(a, b, b.getID(), dx / distance, dy / distance, radius
+					- distance);
+			return;
+		}
+
+		// The center is inside the box, so push it out of the nearest side
+		double left = x - b.p1.x;
+		double right = b.p2.x - x;
+		double top = y - b.p1.y;
+		double bottom = b.p2.y - y;
+		double nearest = Math.min(Math.min(left, right), Math.min(top, bottom));
+		if (nearest == left)
+			add(a, b, b.getID(), 1, 0, radius + left);
+		else if (nearest == right)
+			add(a, b, b.getID(), -1, 0, radius + right);
+		else if (nearest == top)
+			add(a, b, b.getID(), 0, 1, radius + top);
+		else
+			add(a, b, b.getID(), 0, -1, radius + bottom);
+	}
+
+	/**
+	 * Adds a contact between two AABBs, along the axis they overlap least on
+	 */
+	private void addBoxContact(AABB2D a, AABB2D b)
+	{
+		double overlapX = Math.min(a.p2.x, b.p2.x) - Math.max(a.p1.x, b.p1.x);
+		double overlapY = Math.min(a.p2.y, b.p2.y) - Math.max(a.p1.y, b.p1.y);
+		double centerX = (b.p1.x + b.p2.x) - (a.p1.x + a.p2.x);
+		double centerY = (b.p1.y + b.p2.y) - (a.p1.y + a.p2.y);
+		if (overlapX < overlapY)
+		{
+			add(a, b, b.getID(), centerX < 0 ? -1 : 1, 0, overlapX);
+		}
+		else
+		{
+			add(a, b, b.getID(), 0, centerY < 0 ? -1 : 1, overlapY);
+		}
+	}
+
+	/**
+	 * Adds a contact between a moving entity and a rectangle, pushing it out
+	 * the shortest way the rectangle finds
+	 */
+	private void addRectangleContact(Entity2D a, Rectangle2D b)
+	{
+		double depth = b.getPenetration(a, outOfRectangle);
+		add(a, b, b.getID(), -outOfRectangle.x, -outOfRectangle.y, depth);
+	}
+
+	/**
+	 * Adds a contact, unless the entities aren't touching or the pair is
+	 * already in
+	 * 
+	 * @param a The moving entity
+	 * @param b The other entity, or null for a wall
+	 * @param id The id of the other entity, or of the wall
+	 * @param nx The x of the unit normal, pointing from a to b
+	 * @param ny The y of the unit normal, pointing from a to b
+	 * @param depth How far the entities overlap along the normal
+	 */
+	private void add(Entity2D a, Entity2D b, int id, double nx, double ny,
+			double depth)
+	{
+		if (depth < 0)
+		{
+			return;
+		}
+		// The same two moving entities can be found from either side
+		long key = id < 0 || a.getID() < id ? pairKey(a.getID(), id)
+				: pairKey(id, a.getID());
+		if (!pairs.add(key, count))
+		{
+			return;
+		}
+		if (count == first.length)
+		{
+			allocate(count * 2);
+		}
+		first[count] = a;
+		second[count] = b;
+		normalX[count] = nx;
+		normalY[count] = ny;
+		penetration[count] = depth;
+		inverseMassA[count] = inverseMass(a);
+		inverseMassB[count] = b == null ? 0 : inverseMass(b);
+		normalImpulse[count] = 0;
+		tangentImpulse[count] = 0;
+		count++;
+	}
+
+	/**
+	 * Gets the speed the pair of a contact are separating at along a
+	 * direction. Entities move by the opposite of their velocity
+	 */
+	private double relativeVelocity(int contact, double dirX, double dirY)
+	{
+		Entity2D a = first[contact];
+		Entity2D b = second[contact];
+		double velX = a.vel.x;
+		double velY = a.vel.y;
+		if (b != null)
+		{
+			velX -= b.vel.x;
+			velY -= b.vel.y;
+		}
+		return velX * dirX + velY * dirY;
+	}
+
+	/**
+	 * Pushes the pair of a contact apart, and along its tangent
+	 */
+	private void applyImpulse(int contact, double normal, double tangent)
+	{
+		double impulseX = normalX[contact] * normal - normalY[contact]
+				* tangent;
+		double impulseY = normalY[contact] * normal + normalX[contact]
+				* tangent;
+		// Entities that can't be pushed may be shared between engines, so
+		// they are never written
+		Entity2D a = first[contact];
+		if (inverseMassA[contact] > 0)
+		{
+			a.vel.x += impulseX * inverseMassA[contact];
+			a.vel.y += impulseY * inverseMassA[contact];
+		}
+		Entity2D b = second[contact];
+		if (b != null && inverseMassB[contact] > 0)
+		{
+			b.vel.x -= impulseX * inverseMassB[contact];
+			b.vel.y -= impulseY * inverseMassB[contact];
+		}
+	}
+
+	/**
+	 * Gets how easily an entity is pushed. Entities which don't move can't be
+	 * pushed at all
+	 */
+	private static double inverseMass(Entity2D entity)
+	{
+		if (!entity.hasPhysics() || entity.isSleeping())
+		{
+			return 0;
+		}
+		double mass = entity.getMass();
+		if (mass <= 0)
+		{
+			// AABBs have no mass, so weigh them like the circle that fits in
+			// them
+			AABB2D bounds = entity.getBoundingBox();
+			mass = (bounds.getWidth() + bounds.getHeight()) / 4;
+		}
+		return mass > 0 ? 1 / mass : 0;
+	}
+
+	/**
+	 * Combines the ids of a pair into one key
+	 */
+	private static long pairKey(int a, int b)
+	{
+		return ((long) a << 32) | (b & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Makes all the arrays bigger, keeping the contacts
+	 */
+	private void allocate(int capacity)
+	{
+		first = first == null ? new Entity2D[capacity] : Arrays.copyOf(first,
+				capacity);
+		second = second == null ? new Entity2D[capacity] : Arrays.copyOf(
+				second, capacity);
+		normalX = grow(normalX, capacity);
+		normalY = grow(normalY, capacity);
+		penetration = grow(penetration, capacity);
+		inverseMassA = grow(inverseMassA, capacity);
+		inverseMassB = grow(inverseMassB, capacity);
+		bounce = grow(bounce, capacity);
+		normalImpulse = grow(normalImpulse, capacity);
+		tangentImpulse = grow(tangentImpulse, capacity);
+	}
+
+	private static double[] grow(double[] array, int capacity)
+	{
+		if (array == null)
+		{
+			return new double[capacity];
+		}
+		return array.length < capacity ? Arrays.copyOf(array, capacity)
+				: array;
+	}
+
+	/**
+	 * Finds the contact of a pair by its key, with open addressing so that
+	 * nothing is made per contact
+	 */
+	private static class PairTable
+	{
+		private long[] keys;
+		private int[] contacts;
+		private int[] stamps;
+		private int stamp;
+		private long[] keysByContact;
+
+		PairTable()
+		{
+			this.keys = new long[64];
+			this.contacts = new int[64];
+			this.stamps = new int[64];
+			this.stamp = 1;
+			this.keysByContact = new long[16];
+		}
+
+		/**
+		 * Removes every pair, by moving to a new stamp
+		 */
+		void clear()
+		{
+			stamp++;
+		}
+
+		/**
+		 * Adds a pair
+		 * 
+		 * @return whether it was added, or false if it was already in
+		 */
+		boolean add(long key, int contact)
+		{
+			if (contact * 2 >= keys.length)
+			{
+				grow();
+			}
+			int slot = slotOf(key);
+			while (stamps[slot] == stamp)
+			{
+				if (keys[slot] == key)
+				{
+					return false;
+				}
+				slot = (slot + 1) & (keys.length - 1);
+			}
+			stamps[slot] = stamp;
+			keys[slot] = key;
+			contacts[slot] = contact;
+			if (contact >= keysByContact.length)
+			{
+				keysByContact = Arrays.copyOf(keysByContact, contact * 2);
+			}
+			keysByContact[contact] = key;
+			return true;
+		}
+
+		/**
+		 * Finds the contact of a pair
+		 * 
+		 * @return the index of the contact, or -1 if the pair isn't in
+		 */
+		int find(long key)
+		{
+			int slot = slotOf(key);
+			while (stamps[slot] == stamp)
+			{
+				if (keys[slot] == key)
+				{
+					return contacts[slot];
+				}
+				slot = (slot + 1) & (keys.length - 1);
+			}
+			return -1;
+		}
+
+		/**
+		 * Gets the key of the pair in a contact
+		 */
+		long getKey(int contact)
+		{
+			return keysByContact[contact];
+		}
+
+		private int slotOf(long key)
+		{
+			long hash = key * 0x9E3779B97F4A7C15L;
+			return (int) (hash >>> 32) & (keys.length - 1);
+		}
+
+		/**
+		 * Doubles the table, adding back the pairs with the current stamp
+		 */
+		private void grow()
+		{
+			long[] oldKeys = keys;
+			int[] oldContacts = contacts;
+			int[] oldStamps = stamps;
+			keys = new long[oldKeys.length * 2];
+			contacts = new int[oldKeys.length * 2];
+			stamps = new int[oldKeys.length * 2];
+			for (int slot = 0; slot < oldKeys.length; slot++)
+			{
+				if (oldStamps[slot] == stamp)
+				{
+					int newSlot = slotOf(oldKeys[slot]);
+					while (stamps[newSlot] == stamp)
+					{
+						newSlot = (newSlot + 1) & (keys.length - 1);
+					}
+					stamps[newSlot] = stamp;
+					keys[newSlot] = oldKeys[slot];
+					contacts[newSlot] = oldContacts[slot];
+				}
+			}
+		}
+	}
+}
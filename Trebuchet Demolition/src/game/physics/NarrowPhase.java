@@ -0,0 +1,257 @@
+package game.physics;
+
+import game.physics.entity.Entity2D;
+import game.physics.util.CollisionType;
+import game.physics.util.IndexList;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Holds the pairs of entities that the broad phase found, and finds the type
+ * of collision between each pair. Each pair's result is stored in its own
+ * slot, so the pairs can be checked on many threads at once and still be read
+ * back in the same order as if they were checked one at a time
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class NarrowPhase
+{
+	/**
+	 * How few pairs a task checks before it stops splitting itself up
+	 */
+	private static final int PAIRS_PER_TASK = 256;
+
+	private IndexList firsts;
+	private IndexList seconds;
+	private IndexList groupEnds;
+	private CollisionType[] types;
+
+	/**
+	 * The entities copied out of the engine's Vector, so checking threads
+	 * don't all wait on its lock
+	 */
+	private Entity2D[] lookup;
+
+	private int threads;
+	private ForkJoinPool pool;
+
+	/**
+	 * Constructs a narrow phase which checks pairs on the calling thread
+	 */
+	public NarrowPhase()
+	{
+		this.firsts = new IndexList();
+		this.seconds = new IndexList();
+		this.groupEnds = new IndexList();
+		this.types = new CollisionType[0];
+		this.lookup = new Entity2D[0];
+		this.threads = 1;
+		this.pool = null;
+	}
+
+	/**
+	 * Removes all the pairs
+	 */
+	public void clear()
+	{
+		firsts.clear();
+		seconds.clear();
+		groupEnds.clear();
+	}
+
+	/**
+	 * Adds a group of pairs between an entity and every one of its candidates
+	 * 
+	 * @param index The index of the entity
+	 * @param candidates The indices of the entities it might be colliding with
+	 */
+	public void addPairs(int index, IndexList candidates)
+	{
+		for (int candidate = 0; candidate < candidates.size(); candidate++)
+		{
+			firsts.add(index);
+			seconds.add(candidates.get(candidate));
+		}
+		groupEnds.add(firsts.size());
+	}
+
+	/**
+	 * Finds the type of collision for every pair
+	 * 
+	 * @param entities The entities in the physics engine
+	 */
+	public void detect(List<Entity2D> entities)
+	{
+		int count = firsts.size();
+		if (types.length < count)
+		{
+			types = new CollisionType[Math.max(count, types.length * 2)];
+		}
+		if (lookup.length < entities.size())
+		{
+			lookup = new Entity2D[Math.max(entities.size(),
+					lookup.length * 2)];
+		}
+		lookup = entities.toArray(lookup);
+
+		if (pool == null || count <= PAIRS_PER_TASK)
+		{
+			detect(0, count);
+		}
+		else
+		{
+			pool.invoke(new DetectTask(0, count));
+		}
+		// Don't hold on to entities which might be removed
+		Arrays.fill(lookup, 0, entities.size(), null);
+	}
+
+	/**
+	 * Finds the type of collision for a range of pairs
+	 * 
+	 * @param start The first pair to check
+	 * @param end The pair after the last one to check
+	 */
+	private void detect(int start, int end)
+	{
+		for (int pair = start; pair < end; pair++)
+		{
+			Entity2D first = lookup[firsts.get(pair)];
+			Entity2D second = lookup[seconds.get(pair)];
+			types[pair] = first.getCollisionState(second);
+		}
+	}
+
+	/**
+	 * Gets the amount of groups of pairs
+	 * 
+	 * @return the amount of groups
+	 */
+	public int getGroupCount()
+	{
+		return groupEnds.size();
+	}
+
+	/**
+	 * Gets the first pair in a group
+	 * 
+	 * @param group The group, in the order they were added
+	 * @return the index of the first pair
+	 */
+	public int getGroupStart(int group)
+	{
+		return group == 0 ? 0 : groupEnds.get(group - 1);
+	}
+
+	/**
+	 * Gets the pair after the last one in a group
+	 * 
+	 * @param group The group, in the order they were added
+	 * @return the index of the pair after the group
+	 */
+	public int getGroupEnd(int group)
+	{
+		return groupEnds.get(group);
+	}
+
+	/**
+	 * Gets the entity that a pair's group was added for
+	 * 
+	 * @param pair The index of the pair
+	 * @return the index of the entity
+	 */
+	public int getFirst(int pair)
+	{
+		return firsts.get(pair);
+	}
+
+	/**
+	 * Gets the candidate in a pair
+	 * 
+	 * @param pair The index of the pair
+	 * @return the index of the candidate entity
+	 */
+	public int getSecond(int pair)
+	{
+		return seconds.get(pair);
+	}
+
+	/**
+	 * Gets the type of collision found for a pair by the last detect()
+	 * 
+	 * @param pair The index of the pair
+	 * @return the type of collision
+	 */
+	public CollisionType getCollisionType(int pair)
+	{
+		return types[pair];
+	}
+
+	/**
+	 * Gets how many threads pairs are checked on
+	 * 
+	 * @return the amount of threads
+	 */
+	public int getThreads()
+	{
+		return threads;
+	}
+
+	/**
+	 * Sets how many threads pairs are checked on. With one thread, pairs are
+	 * checked on the thread calling detect(). The results are the same either
+	 * way
+	 * 
+	 * @param threads The amount of threads
+	 */
+	public void setThreads(int threads)
+	{
+		threads = Math.max(threads, 1);
+		if (threads == this.threads)
+		{
+			return;
+		}
+		if (pool != null)
+		{
+			pool.shutdown();
+		}
+		this.threads = threads;
+		this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+	}
+
+	/**
+	 * Checks a range of pairs, splitting it in half until it is small enough
+	 */
+	private class DetectTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int start;
+		private final int end;
+
+		DetectTask(int start, int end)
+		{
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (end - start <= PAIRS_PER_TASK)
+			{
+				detect(start, end);
+			}
+			else
+			{
+				int middle = (start + end) >>> 1;
+				invokeAll(new DetectTask(start, middle), new DetectTask(middle,
+						end));
+			}
+		}
+	}
+}
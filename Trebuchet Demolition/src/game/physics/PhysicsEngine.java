@@ -1,18 +1,29 @@
 package game.physics;
 
-import game.TrebuchetDemolition;
 import game.level.Level;
+import game.physics.broadphase.AABBTree;
+import game.physics.broadphase.AllPairsBroadPhase;
+import game.physics.broadphase.BroadPhase;
+import game.physics.broadphase.BroadPhaseType;
+import game.physics.broadphase.SpatialHashGrid;
+import game.physics.broadphase.SweepAndPrune;
 import game.physics.entity.AABB2D;
 import game.physics.entity.Circle2D;
 import game.physics.entity.Entity2D;
 import game.physics.entity.Projectile2D;
-import game.physics.entity.Rectangle2D;
-import game.physics.util.CollisionResolver;
+import game.physics.util.CollisionTable;
 import game.physics.util.CollisionType;
+import game.physics.util.ContinuousCollision;
+import game.physics.util.GameLogger;
+import game.physics.util.IndexList;
+import game.physics.util.ObjectPool;
 import game.physics.util.Vector2D;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 import java.util.Vector;
+import java.util.logging.Logger;
 
 /**
  * Contains the main code to emulate physics
@@ -22,12 +33,51 @@ import java.util.Vector;
  */
 public class PhysicsEngine
 {
+	private static final Logger LOGGER = GameLogger.LOGGER;
+
 	// These constants are not related to real world constants
 	public static final Vector2D GRAVITY_CONSTANT = new Vector2D(0, 0.1);
+	/**
+	 * The radius of a fired projectile
+	 */
+	public static final int PROJECTILE_RADIUS = 10;
+	/**
+	 * The version of the simulation, which must go up whenever a change makes
+	 * recorded replays play out differently
+	 */
+	public static final int VERSION = 1;
 	/**
 	 * Bounciness of an object
 	 */
-	private static final double RESTITUTION = 1.3;
+	public static final double RESTITUTION = 1.3;
+	/**
+	 * How slow an entity has to move, in pixels per update, to count as
+	 * resting
+	 */
+	private static final double SLEEP_VELOCITY = 0.15;
+	/**
+	 * How many updates in a row an entity has to rest for before it is put to
+	 * sleep
+	 */
+	private static final int SLEEP_TICKS = 60;
+	/**
+	 * How far a fast circle is moved into the entity it hits, in pixels, so
+	 * that the next update sees the collision and bounces it off
+	 */
+	private static final double CONTACT_DEPTH = 0.5;
+	/**
+	 * In adaptive mode, the most that any moving entity may move in one step,
+	 * as a fraction of its radius or smallest half width or height
+	 */
+	private static final double MAX_STEP_FRACTION = 0.5;
+	/**
+	 * The most steps that one update is split into in adaptive mode
+	 */
+	private static final int MAX_SUBSTEPS = 16;
+	/**
+	 * The most removed projectiles that are kept to be fired again
+	 */
+	private static final int MAX_FREE_PROJECTILES = 16;
 
 	public boolean gravity = true;
 
@@ -38,7 +88,72 @@ public class PhysicsEngine
 
 	private Vector<Entity2D> entities;
 
-	private boolean won = false;
+	/**
+	 * Entities without physics never move, and sleeping entities don't move
+	 * until something wakes them, so they are kept apart from the ones that do
+	 * and only indexed again when that changes
+	 */
+	private IndexList staticIndices;
+	private IndexList dynamicIndices;
+	private boolean structureChanged;
+	private int lastEntityCount;
+
+	/**
+	 * The positions and velocities of the moving entities, and which of them
+	 * collided with another entity in this update()
+	 */
+	private BodyStore bodies;
+	private boolean[] entityCollided;
+	/**
+	 * Which entities, by their index in the engine, collided with anything in
+	 * any step of this update(), so that each is only counted once
+	 */
+	private boolean[] collidedInTick;
+
+	/**
+	 * Finds which entities are close enough to possibly collide, so that every
+	 * entity doesn't have to be checked against every other one
+	 */
+	private BroadPhase broadPhase;
+	private BroadPhaseType broadPhaseType;
+	private IndexList candidates;
+	/**
+	 * Finds which of the close entities are actually colliding, possibly on
+	 * many threads
+	 */
+	private NarrowPhase narrowPhase;
+	/**
+	 * Answers region and point queries for every entity
+	 */
+	private AABBTree spatialIndex;
+	private boolean spatialIndexChanged;
+	private double cellSize = SpatialHashGrid.DEFAULT_CELL_SIZE;
+
+	private boolean adaptiveSteps = false;
+
+	/**
+	 * Resolves the collisions with impulses instead of bouncing each pair
+	 * apart, if selected
+	 */
+	private SolverType solverType = SolverType.ELASTIC;
+	private ContactSolver contactSolver;
+
+	/**
+	 * Keeps the last few updates so they can be wound back to, if turned on.
+	 * The entities are copied into an array for it once each time they change
+	 */
+	private RewindBuffer rewind;
+	private Entity2D[] layout;
+
+	/**
+	 * Projectiles are fired and removed over and over, so the removed ones are
+	 * kept and fired again instead of making new ones
+	 */
+	private ObjectPool<Projectile2D> projectilePool;
+
+	private volatile boolean won = false;
+	private long wonTick = -1;
+	private long tickCount = 0;
 
 	/**
 	 * Constructs a PhysicsEngine
@@ -51,6 +166,28 @@ public class PhysicsEngine
 		this.width = width;
 		this.height = height;
 		this.entities = new Vector<Entity2D>();
+		this.staticIndices = new IndexList();
+		this.dynamicIndices = new IndexList();
+		this.bodies = new BodyStore();
+		this.entityCollided = new boolean[0];
+		this.collidedInTick = new boolean[0];
+		this.candidates = new IndexList();
+		this.narrowPhase = new NarrowPhase();
+		this.spatialIndex = new AABBTree();
+		this.contactSolver = new ContactSolver();
+		this.projectilePool = new ObjectPool<Projectile2D>(
+				MAX_FREE_PROJECTILES)
+		{
+			@Override
+			protected Projectile2D create()
+			{
+				return new Projectile2D(new Vector2D(), Vector2D.ZERO,
+						PROJECTILE_RADIUS);
+			}
+		};
+		this.structureChanged = true;
+		this.spatialIndexChanged = true;
+		this.setBroadPhaseType(BroadPhaseType.SPATIAL_HASH);
 	}
 
 	/**
@@ -58,11 +195,33 @@ public class PhysicsEngine
 	 * 
 	 * @param level The level to load
 	 */
-	public void loadLevel(Level level)
+	public synchronized void loadLevel(Level level)
 	{
+		// Copy the list, since it will be cleared on load
+		loadWorld(level.getMetadata(), level.getEntities());
+		LOGGER.info("Loaded level \"" + level.getName()
+				+ "\" into Physics Engine");
+	}
+
+	/**
+	 * Loads a world into the simulator, with the same settings a level can
+	 * have but without logging, for running many worlds at once
+	 * 
+	 * @param metadata The level settings, such as gravity and broad phase
+	 * @param levelEntities The entities, which are used directly and not
+	 *            cloned
+	 */
+	public synchronized void loadWorld(Properties metadata,
+			List<Entity2D> levelEntities)
+	{
+		// Nothing can wind back to the old world, so its projectiles are free
+		releaseProjectiles();
 		entities.clear();
 		won = false;
-		Properties metadata = level.getMetadata();
+		wonTick = -1;
+		// Ticks are counted from when the world was loaded, so that replays
+		// line up no matter what was loaded before
+		tickCount = 0;
 
 		try
 		{
@@ -82,106 +241,368 @@ public class PhysicsEngine
 			{
 				this.gravity = true;
 			}
+
+			if (metadata.getProperty("cellsize") != null)
+			{
+				try
+				{
+					this.setCellSize(Double.parseDouble(metadata
+							.getProperty("cellsize")));
+				}
+				catch (Exception e)
+				{
+					this.setCellSize(SpatialHashGrid.DEFAULT_CELL_SIZE);
+				}
+			}
+			else
+			{
+				this.setCellSize(SpatialHashGrid.DEFAULT_CELL_SIZE);
+			}
+
+			// Levels can ask for a certain broad phase, otherwise keep the
+			// one that was selected on the engine
+			if (metadata.getProperty("broadphase") != null)
+			{
+				try
+				{
+					this.setBroadPhaseType(BroadPhaseType.valueOf(metadata
+							.getProperty("broadphase").trim().toUpperCase()));
+				}
+				catch (Exception e)
+				{
+					LOGGER.warning("Unknown broad phase: "
+							+ metadata.getProperty("broadphase"));
+				}
+			}
+
+			// Levels can ask for a certain solver the same way
+			if (metadata.getProperty("solver") != null)
+			{
+				try
+				{
+					this.setSolverType(SolverType.valueOf(metadata
+							.getProperty("solver").trim().toUpperCase()));
+				}
+				catch (Exception e)
+				{
+					LOGGER.warning("Unknown solver: "
+							+ metadata.getProperty("solver"));
+				}
+			}
 		}
 		catch (Exception e)
 		{
-			TrebuchetDemolition.LOGGER
-					.warning("Error while loading level properties: "
-							+ e.getMessage());
+			LOGGER.warning("Error while loading level properties: "
+					+ e.getMessage());
 		}
 
-		// Clone it, since it will be cleared on load
-		entities = (Vector<Entity2D>) level.getEntities().clone();
-		TrebuchetDemolition.LOGGER.info("Loaded level \"" + level.getName()
-				+ "\" into Physics Engine");
+		entities = new Vector<Entity2D>(levelEntities);
+		markStructureChanged();
+		if (rewind != null)
+		{
+			rewind.clear();
+		}
+		contactSolver.reset();
 	}
 
 	/**
-	 * Makes the physics engine do a physics update
+	 * Makes the physics engine do a physics update, split into smaller steps
+	 * if adaptive steps are on. Each step finds and resolves the collisions of
+	 * every moving entity first, and only then bounces them off the walls,
+	 * adds gravity and moves them. The original engine did all of that one
+	 * entity at a time, so an entity later in the list saw the ones before it
+	 * already moved. Results differ from that engine, so highscores saved by
+	 * it aren't compared against
 	 */
-	public void update()
+	public synchronized void update()
 	{
+		tickCount++;
+		rebuildIfChanged();
+		if (collidedInTick.length < entities.size())
+		{
+			collidedInTick = new boolean[entities.size()];
+		}
+		Arrays.fill(collidedInTick, 0, entities.size(), false);
+		int substeps = adaptiveSteps ? countSubsteps() : 1;
+		double timeStep = 1.0 / substeps;
+		for (int substep = 0; substep < substeps; substep++)
+		{
+			step(timeStep);
+		}
+
+		// Keep track of how many entities collided in this update()
 		collisionsInTick = 0;
+		for (int index = 0; index < entities.size(); index++)
+		{
+			if (collidedInTick[index])
+			{
+				collisionsInTick++;
+			}
+		}
+
+		for (int body = 0; body < bodies.size(); body++)
+		{
+			updateSleep(bodies.getEntity(body));
+		}
+
+		if (rewind != null)
+		{
+			if (layout == null || layout.length != entities.size())
+			{
+				layout = entities.toArray(new Entity2D[entities.size()]);
+			}
+			rewind.capture(layout, tickCount, won, wonTick, collisionsInTick);
+		}
+
+		if (projectilePool.isDebug())
+		{
+			projectilePool.checkLeaks(entities);
+		}
+	}
+
+	/**
+	 * Partitions and indexes the entities again if any were added, removed,
+	 * put to sleep or woken up
+	 */
+	private void rebuildIfChanged()
+	{
+		if (structureChanged || entities.size() != lastEntityCount)
+		{
+			partitionEntities();
+			broadPhase.rebuild(entities, staticIndices, dynamicIndices);
+			bodies.rebuild(entities, dynamicIndices);
+			if (entityCollided.length < dynamicIndices.size())
+			{
+				entityCollided = new boolean[dynamicIndices.size()];
+			}
+		}
+	}
+
+	/**
+	 * Finds how many steps to split this update into, so that no moving
+	 * entity moves more than MAX_STEP_FRACTION of its size in one of them
+	 * 
+	 * @return the amount of steps, between 1 and MAX_SUBSTEPS
+	 */
+	private int countSubsteps()
+	{
+		double fastest = 0;
+		for (int body = 0; body < bodies.size(); body++)
+		{
+			double size = Math.min(bodies.halfWidth[body],
+					bodies.halfHeight[body]);
+			if (size > 0)
+			{
+				fastest = Math.max(fastest, bodies.getEntity(body).vel.length()
+						/ size);
+			}
+		}
+		int substeps = (int) Math.ceil(fastest / MAX_STEP_FRACTION);
+		return Math.max(1, Math.min(substeps, MAX_SUBSTEPS));
+	}
+
+	/**
+	 * Moves the simulation forward by part of an update
+	 * 
+	 * @param timeStep The part of an update to move by, where 1 is a whole
+	 *            update
+	 */
+	private void step(double timeStep)
+	{
+		rebuildIfChanged();
 		this.dehandleAll();
-		// Loop through every entities and do physics on them
-		for (Entity2D e : entities)
+		broadPhase.update(entities);
+		// Pair every moving entity with the entities close to it. Static
+		// entities are only ever checked from the side of a moving one
+		narrowPhase.clear();
+		for (int item = 0; item < dynamicIndices.size(); item++)
 		{
-			boolean entityCollided = handleEntityCollisions(e);
-			boolean wallCollided = false;
-			if (e.hasPhysics())
-				wallCollided = handleWallCollisions(e);
+			broadPhase.query(dynamicIndices.get(item), candidates);
+			narrowPhase.addPairs(dynamicIndices.get(item), candidates);
+		}
+		// Find all the collisions first, then resolve them in the same order
+		// no matter how many threads found them
+		narrowPhase.detect(entities);
+		contactSolver.clear();
+		for (int item = 0; item < dynamicIndices.size(); item++)
+		{
+			entityCollided[item] = handleEntityCollisions(item, timeStep);
+		}
+		if (solverType == SolverType.IMPULSE)
+		{
+			solveContacts(timeStep);
+		}
 
-			// Keep track of how many collisions happened in this update()
-			if (entityCollided || wallCollided)
-				collisionsInTick++;
-			if (gravity && e.hasPhysics())
+		// Do walls, gravity and movement for all the moving entities at once
+		bodies.gather();
+		if (solverType == SolverType.IMPULSE)
+		{
+			// The solver already bounced the entities off the walls, so only
+			// keep them inside
+			bodies.clampToWalls(width, height);
+		}
+		else
+		{
+			bodies.handleWalls(width, height, RESTITUTION);
+			if (gravity)
 			{
-				e.vel = e.vel.subtract(GRAVITY_CONSTANT);
+				bodies.applyGravity(GRAVITY_CONSTANT.x * timeStep,
+						GRAVITY_CONSTANT.y * timeStep);
 			}
+		}
+		sweepFastBodies(timeStep);
+		bodies.integrate(timeStep);
+		bodies.scatter();
 
-			// Subtract the acceleration from velocities
-			for (Vector2D vector : e.getPointArray())
+		// Remember which entities collided, so each is counted only once
+		// however many steps the update is split into
+		for (int body = 0; body < bodies.size(); body++)
+		{
+			if (entityCollided[body] || bodies.hitWall[body])
 			{
-				vector.x -= e.vel.x;
-				vector.y -= e.vel.y;
+				collidedInTick[dynamicIndices.get(body)] = true;
 			}
 		}
+	}
 
+	/**
+	 * Solves the contacts found in this update all together, along with the
+	 * walls. Gravity is added first, so that entities resting on something
+	 * have it cancelled out in the same update instead of sinking in and
+	 * being pushed back out
+	 * 
+	 * @param timeStep The part of an update that is being solved
+	 */
+	private void solveContacts(double timeStep)
+	{
+		for (int item = 0; item < dynamicIndices.size(); item++)
+		{
+			Entity2D entity = entities.get(dynamicIndices.get(item));
+			if (gravity)
+			{
+				entity.vel.x -= GRAVITY_CONSTANT.x * timeStep;
+				entity.vel.y -= GRAVITY_CONSTANT.y * timeStep;
+			}
+			contactSolver.addWallContacts(entity, width, height);
+		}
+		contactSolver.solve(timeStep, RESTITUTION);
 	}
 
 	/**
-	 * Checks if this entity is colliding with another one
+	 * Stops fast circles where they first hit a static entity, instead of
+	 * letting them move far enough in one update to pass through it. The
+	 * broad phase already swept their bounds by their velocity, so the static
+	 * entities they could hit are among the pairs found this update
 	 * 
-	 * @param entity The entity to check
+	 * @param timeStep The part of an update that the circles move by
+	 */
+	private void sweepFastBodies(double timeStep)
+	{
+		for (int body = 0; body < bodies.size(); body++)
+		{
+			Entity2D entity = bodies.getEntity(body);
+			if (!(entity instanceof Circle2D))
+			{
+				continue;
+			}
+			// Anything slower than its radius can't skip past anything
+			double radius = ((Circle2D) entity).getRadius();
+			double dx = -bodies.vx[body] * timeStep;
+			double dy = -bodies.vy[body] * timeStep;
+			double distanceSq = dx * dx + dy * dy;
+			if (distanceSq <= radius * radius)
+			{
+				continue;
+			}
+
+			double impact = ContinuousCollision.NO_IMPACT;
+			int end = narrowPhase.getGroupEnd(body);
+			for (int pair = narrowPhase.getGroupStart(body); pair < end; pair++)
+			{
+				Entity2D e = entities.get(narrowPhase.getSecond(pair));
+				if (e.hasPhysics() && !e.isSleeping())
+				{
+					continue;
+				}
+				impact = Math.min(impact, ContinuousCollision.timeOfImpact(
+						bodies.x[body], bodies.y[body], radius, dx, dy, e));
+			}
+			if (impact < ContinuousCollision.NO_IMPACT)
+			{
+				bodies.step[body] = Math.min(impact + CONTACT_DEPTH
+						/ Math.sqrt(distanceSq), 1);
+			}
+		}
+	}
+
+	/**
+	 * Resolves the collisions found between a moving entity and the entities
+	 * near it
+	 * 
+	 * @param group The group of pairs for the entity, which is its position
+	 *            in the list of moving entities
+	 * @param timeStep The part of an update being stepped
 	 * @return whether this entity is colliding with another one
 	 */
-	public synchronized boolean handleEntityCollisions(Entity2D entity)
+	private boolean handleEntityCollisions(int group, double timeStep)
 	{
+		int start = narrowPhase.getGroupStart(group);
+		int end = narrowPhase.getGroupEnd(group);
+		Entity2D entity = entities.get(dynamicIndices.get(group));
 		boolean hasCollided = false;
-		// Loop through every entity other than this one if this entity is not
-		// hitting any other ones so far in this update()
-		if (!entity.isHandling())
+		// Loop through every entity near this one if this entity is not
+		// hitting any other ones so far in this update(). The impulse solver
+		// solves every contact together, so it needs all of them
+		if (!entity.isHandling() || solverType == SolverType.IMPULSE)
 		{
-			for (Entity2D e : entities)
+			for (int pair = start; pair < end; pair++)
 			{
-				if (e != entity)
+				Entity2D e = entities.get(narrowPhase.getSecond(pair));
+				// Anything moving into a sleeping entity wakes it up. The
+				// broad phase can list entities which aren't touching, and
+				// some list more than others, so check the bounds really
+				// touch or the broad phase would change what happens
+				if (e.isSleeping() && isMoving(entity)
+						&& boundsTouch(entity, e))
+				{
+					e.setSleeping(false);
+					structureChanged = true;
+				}
+				// Check if the collision state isn't NO_COLLISION, then
+				// resolve the collisions based on the type of collision
+				// that has occured
+				CollisionType colType = narrowPhase.getCollisionType(pair);
+				if (colType != CollisionType.NO_COLLISION)
 				{
-					// Check if the collision state isn't NO_COLLISION, then
-					// resolve the collisions based on the type of collision
-					// that has occured
-					CollisionType colType = entity.getCollisionState(e);
-					if (colType != CollisionType.NO_COLLISION)
+					entity.setHandling(true);
+					if (e.hasPhysics() && !e.isSleeping())
 					{
-						entity.setHandling(true);
 						e.setHandling(true);
-						hasCollided = true;
-						if (colType == CollisionType.CIRCLE_TO_CIRCLE)
-						{
-							CollisionResolver.resolveCircleCollision(
-									(Circle2D) entity, (Circle2D) e,
-									RESTITUTION);
-						}
-						else if (colType == CollisionType.AABB_TO_AABB)
-						{
-
-						}
-						else if (colType == CollisionType.CIRCLE_TO_AABB)
+					}
+					hasCollided = true;
+					if (colType == CollisionType.WINNING_COLLISION)
+					{
+						if (!won)
 						{
-							CollisionResolver.resolveAABBCircleCollision(
-									(Circle2D) entity, (AABB2D) e, RESTITUTION);
-
+							wonTick = tickCount;
 						}
-						else if (colType == CollisionType.CIRCLE_TO_RECT)
-						{
-							CollisionResolver.resolveRectCircleCollision(
-									(Circle2D) entity, (Rectangle2D) e,
-									RESTITUTION);
+						won = true;
+					}
+					else if (solverType == SolverType.IMPULSE)
+					{
+						contactSolver.addContact(entity, e);
+					}
+					else
+					{
+						CollisionTable.get(entity.getShapeKind(),
+								e.getShapeKind()).resolve(entity, e,
+								RESTITUTION, timeStep);
+					}
 
-						}
-						else if (colType == CollisionType.WINNING_COLLISION)
-						{
-							won = true;
-						}
+					// Something too slow to wake the entity can't move it
+					if (e.isSleeping())
+					{
+						e.vel.zero();
 					}
 				}
 			}
@@ -205,20 +626,128 @@ public class PhysicsEngine
 	 */
 	public void dehandleAll()
 	{
-		for (Entity2D e : entities)
+		// Static entities are never set as handling
+		for (int item = 0; item < dynamicIndices.size(); item++)
 		{
-			e.setHandling(false);
+			entities.get(dynamicIndices.get(item)).setHandling(false);
 		}
 	}
 
+	/**
+	 * Checks if the bounds of two entities overlap or touch. Bounds with a
+	 * NaN in them never touch anything, the same as in the broad phases that
+	 * can't place them
+	 * 
+	 * @param a One entity
+	 * @param b The other entity
+	 * @return whether their bounds touch
+	 */
+	private static boolean boundsTouch(Entity2D a, Entity2D b)
+	{
+		AABB2D boundsA = a.getBoundingBox();
+		AABB2D boundsB = b.getBoundingBox();
+		return boundsA.p1.x <= boundsB.p2.x && boundsB.p1.x <= boundsA.p2.x
+				&& boundsA.p1.y <= boundsB.p2.y && boundsB.p1.y <= boundsA.p2.y;
+	}
+
+	/**
+	 * Checks if an entity is moving fast enough to not be resting
+	 * 
+	 * @param entity The entity to check
+	 * @return whether the entity is moving
+	 */
+	private boolean isMoving(Entity2D entity)
+	{
+		double speedSquared = entity.vel.x * entity.vel.x + entity.vel.y
+				* entity.vel.y;
+		return speedSquared >= SLEEP_VELOCITY * SLEEP_VELOCITY;
+	}
+
+	/**
+	 * Puts an entity to sleep once it has been resting for long enough
+	 * 
+	 * @param entity The entity which was just moved
+	 */
+	private void updateSleep(Entity2D entity)
+	{
+		if (isMoving(entity))
+		{
+			entity.setRestingTicks(0);
+		}
+		else
+		{
+			entity.setRestingTicks(entity.getRestingTicks() + 1);
+			if (entity.getRestingTicks() >= SLEEP_TICKS)
+			{
+				entity.setSleeping(true);
+				structureChanged = true;
+			}
+		}
+	}
+
+	/**
+	 * Wakes up every sleeping entity
+	 */
+	private void wakeAll()
+	{
+		for (Entity2D entity : entities)
+		{
+			if (entity.isSleeping())
+			{
+				entity.setSleeping(false);
+			}
+		}
+	}
+
+	/**
+	 * Splits the entities into the ones which move and the ones which don't
+	 */
+	private void partitionEntities()
+	{
+		staticIndices.clear();
+		dynamicIndices.clear();
+		for (int index = 0; index < entities.size(); index++)
+		{
+			Entity2D entity = entities.get(index);
+			// Entities without physics may be shared with other engines
+			// updating on other threads, so only clear the ones that move
+			if (entity.hasPhysics())
+			{
+				entity.setHandling(false);
+			}
+			if (entity.hasPhysics() && !entity.isSleeping())
+			{
+				dynamicIndices.add(index);
+			}
+			else
+			{
+				staticIndices.add(index);
+			}
+		}
+		lastEntityCount = entities.size();
+		structureChanged = false;
+	}
+
+	/**
+	 * Makes the broad phase and the spatial index be built again before they
+	 * are next used, since entities were added or removed
+	 */
+	private void markStructureChanged()
+	{
+		structureChanged = true;
+		spatialIndexChanged = true;
+		layout = null;
+	}
+
 	/**
 	 * Adds the entity to the physics engine
 	 * 
 	 * @param entity The entity to add
 	 */
-	public void addEntity(Entity2D entity)
+	public synchronized void addEntity(Entity2D entity)
 	{
 		entities.add(entity);
+		markStructureChanged();
 	}
 
 	/**
@@ -226,33 +755,51 @@ public class PhysicsEngine
 	 * 
 	 * @param entity The entity to remove
 	 */
-	public void removeEntity(Entity2D entity)
+	public synchronized void removeEntity(Entity2D entity)
 	{
 		entities.remove(entity);
+		// Something might have been resting on the removed entity
+		wakeAll();
+		markStructureChanged();
 	}
 
 	/**
 	 * Removes the last fired projectile
+	 * 
+	 * @return the amount of updates done before the projectile was removed
 	 */
-	public void removeLastProjectile()
+	public synchronized long removeLastProjectile()
 	{
-		try
+		if (releaseProjectiles())
 		{
-			for (Entity2D entity : entities)
-			{
-
-				if (entity instanceof Projectile2D)
-				{
-					removeEntity(entity);
-				}
-
-			}
+			// Something might have been resting on the removed projectile
+			wakeAll();
+			markStructureChanged();
+			contactSolver.reset();
 		}
-		catch (Throwable e)
-		{
+		return tickCount;
+	}
 
+	/**
+	 * Removes every projectile and gives it back to be fired again
+	 * 
+	 * @return whether any projectiles were removed
+	 */
+	private boolean releaseProjectiles()
+	{
+		boolean removed = false;
+		// Go backwards so removing doesn't skip the entity after it
+		for (int index = entities.size() - 1; index >= 0; index--)
+		{
+			Entity2D entity = entities.get(index);
+			if (entity instanceof Projectile2D)
+			{
+				entities.remove(index);
+				projectilePool.release((Projectile2D) entity);
+				removed = true;
+			}
 		}
-
+		return removed;
 	}
 
 	/**
@@ -265,12 +812,229 @@ public class PhysicsEngine
 		return entities;
 	}
 
+	/**
+	 * Gets every entity whose bounding box overlaps a region
+	 * 
+	 * @param x1 The left edge of the region
+	 * @param y1 The top edge of the region
+	 * @param x2 The right edge of the region
+	 * @param y2 The bottom edge of the region
+	 * @return the entities in the region, in the order they were added
+	 */
+	public synchronized Vector<Entity2D> getEntitiesInRegion(double x1,
+			double y1, double x2, double y2)
+	{
+		updateSpatialIndex();
+		IndexList found = new IndexList();
+		spatialIndex.queryRegion(x1, y1, x2, y2, found);
+
+		Vector<Entity2D> region = new Vector<Entity2D>();
+		for (int index = 0; index < found.size(); index++)
+		{
+			region.add(entities.get(found.get(index)));
+		}
+		return region;
+	}
+
+	/**
+	 * Gets every entity whose shape contains a point
+	 * 
+	 * @param x The x coordinate of the point
+	 * @param y The y coordinate of the point
+	 * @return the entities at the point, in the order they were added
+	 */
+	public synchronized Vector<Entity2D> getEntitiesAt(double x, double y)
+	{
+		updateSpatialIndex();
+		IndexList found = new IndexList();
+		spatialIndex.queryPoint(x, y, found);
+
+		Vector<Entity2D> point = new Vector<Entity2D>();
+		for (int index = 0; index < found.size(); index++)
+		{
+			Entity2D entity = entities.get(found.get(index));
+			if (entity.contains(x, y))
+			{
+				point.add(entity);
+			}
+		}
+		return point;
+	}
+
+	/**
+	 * Brings the spatial index up to date with where the entities are now
+	 */
+	private void updateSpatialIndex()
+	{
+		if (spatialIndexChanged || entities.size() != spatialIndex.size())
+		{
+			// Entities can be dragged around in the editor, so every entity is
+			// treated as moving here
+			IndexList all = new IndexList(entities.size());
+			for (int index = 0; index < entities.size(); index++)
+			{
+				all.add(index);
+			}
+			spatialIndex.rebuild(entities, new IndexList(), all);
+			spatialIndexChanged = false;
+		}
+		else
+		{
+			// Only entities which left their fat boxes get moved in the tree
+			spatialIndex.update(entities);
+		}
+	}
+
 	/**
 	 * Destroys all entities in the engine
 	 */
-	public void clearAll()
+	public synchronized void clearAll()
+	{
+		entities.clear();
+		markStructureChanged();
+	}
+
+	/**
+	 * Copies the state of the world into a snapshot, which won't change when
+	 * the engine update()s. Nothing may be reading the snapshot
+	 * 
+	 * @param snapshot The snapshot to write into
+	 */
+	public synchronized void writeSnapshot(WorldSnapshot snapshot)
+	{
+		snapshot.write(entities, tickCount, won);
+	}
+
+	/**
+	 * Sets whether the engine remembers where each projectile was fired, and
+	 * reports the ones removed with removeEntity() instead of
+	 * removeLastProjectile(), which are never fired again. This is slow, so
+	 * it is only for finding bugs
+	 * 
+	 * @param debug Whether projectiles are tracked
+	 */
+	public synchronized void setPoolDebug(boolean debug)
 	{
+		projectilePool.setDebug(debug);
+	}
+
+	/**
+	 * Sets how many of the last updates are kept so that they can be wound
+	 * back to. Each update is kept as it finishes
+	 * 
+	 * @param ticks The amount of updates to keep, or 0 to turn rewinding off
+	 */
+	public synchronized void setRewindLength(int ticks)
+	{
+		rewind = ticks > 0 ? new RewindBuffer(ticks) : null;
+	}
+
+	/**
+	 * Gets how many of the last updates are kept so that they can be wound
+	 * back to
+	 * 
+	 * @return the amount of updates kept, or 0 if rewinding is off
+	 */
+	public int getRewindLength()
+	{
+		RewindBuffer buffer = rewind;
+		return buffer == null ? 0 : buffer.getCapacity();
+	}
+
+	/**
+	 * Gets how many updates the world can be wound back by
+	 * 
+	 * @return the amount of updates
+	 */
+	public synchronized int getRewindableTicks()
+	{
+		return rewind == null ? 0 : rewind.getRewindableTicks();
+	}
+
+	/**
+	 * Winds the world back to the way it was a few updates ago, or forward
+	 * again after winding it back. The next update() carries on from there
+	 * and throws away the updates that were after it
+	 * 
+	 * @param ticks The amount of updates to go back, or forward if negative
+	 * @return the amount of updates actually gone back, which is less when
+	 *         the oldest or newest kept update is reached
+	 */
+	public synchronized int rewind(int ticks)
+	{
+		if (rewind == null || rewind.isEmpty())
+		{
+			return 0;
+		}
+		int moved = rewind.seek(ticks);
+		Entity2D[] restored = rewind.restore();
+		swapProjectiles(entities, restored);
 		entities.clear();
+		entities.addAll(Arrays.asList(restored));
+		tickCount = rewind.getTick();
+		wonTick = rewind.getWonTick();
+		won = rewind.hasWon();
+		collisionsInTick = rewind.getCollisions();
+		markStructureChanged();
+		layout = restored;
+		contactSolver.reset();
+		return moved;
+	}
+
+	/**
+	 * Keeps the projectile pool up to date when rewinding changes which
+	 * projectiles are in the world. Projectiles that leave are still kept by
+	 * the rewind buffer, so they are abandoned instead of released
+	 * 
+	 * @param before The entities before rewinding
+	 * @param after The entities after rewinding
+	 */
+	private void swapProjectiles(List<Entity2D> before, Entity2D[] after)
+	{
+		for (Entity2D entity : before)
+		{
+			if (entity instanceof Projectile2D
+					&& !containsEntity(after, entity))
+			{
+				projectilePool.abandon((Projectile2D) entity);
+			}
+		}
+		for (Entity2D entity : after)
+		{
+			if (entity instanceof Projectile2D && !before.contains(entity))
+			{
+				projectilePool.reclaim((Projectile2D) entity);
+			}
+		}
+	}
+
+	/**
+	 * Checks if an array holds an entity, by identity
+	 * 
+	 * @param array The entities to look through
+	 * @param entity The entity to look for
+	 * @return whether the entity is in the array
+	 */
+	private static boolean containsEntity(Entity2D[] array, Entity2D entity)
+	{
+		for (Entity2D other : array)
+		{
+			if (other == entity)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the amount of times the engine has update()d
+	 * 
+	 * @return the amount of updates
+	 */
+	public long getTickCount()
+	{
+		return tickCount;
 	}
 
 	/**
@@ -283,6 +1047,17 @@ public class PhysicsEngine
 		return won;
 	}
 
+	/**
+	 * Gets the update in which the player won
+	 * 
+	 * @return the amount of updates done when the player won, or -1 if the
+	 *         player hasn't won
+	 */
+	public long getWonTick()
+	{
+		return wonTick;
+	}
+
 	/**
 	 * Sets if the player has won
 	 * 
@@ -290,23 +1065,249 @@ public class PhysicsEngine
 	 */
 	public void setWon(boolean b)
 	{
+		wonTick = b ? tickCount : -1;
 		won = b;
 	}
 
+	/**
+	 * Gets the broad phase used to find which entities might be colliding
+	 * 
+	 * @return the type of broad phase in use
+	 */
+	public BroadPhaseType getBroadPhaseType()
+	{
+		return broadPhaseType;
+	}
+
+	/**
+	 * Sets the broad phase used to find which entities might be colliding
+	 * 
+	 * @param type The type of broad phase to use
+	 */
+	public synchronized void setBroadPhaseType(BroadPhaseType type)
+	{
+		if (type == BroadPhaseType.ALL_PAIRS)
+		{
+			broadPhase = new AllPairsBroadPhase();
+		}
+		else if (type == BroadPhaseType.SWEEP_AND_PRUNE)
+		{
+			broadPhase = new SweepAndPrune();
+		}
+		else if (type == BroadPhaseType.AABB_TREE)
+		{
+			broadPhase = new AABBTree();
+		}
+		else
+		{
+			broadPhase = new SpatialHashGrid(cellSize);
+		}
+		broadPhaseType = type;
+		// The new broad phase hasn't seen any entities yet
+		structureChanged = true;
+	}
+
+	/**
+	 * Gets the way collisions between entities are resolved
+	 * 
+	 * @return the type of solver in use
+	 */
+	public SolverType getSolverType()
+	{
+		return solverType;
+	}
+
+	/**
+	 * Sets the way collisions between entities are resolved. The elastic
+	 * solver bounces each colliding pair apart on its own, while the impulse
+	 * solver solves every contact together so that stacks come to rest
+	 * 
+	 * @param type The type of solver to use
+	 */
+	public synchronized void setSolverType(SolverType type)
+	{
+		solverType = type;
+		contactSolver.reset();
+	}
+
+	/**
+	 * Checks if updates are split into smaller steps when entities move fast
+	 * 
+	 * @return whether adaptive steps are on
+	 */
+	public boolean isAdaptiveSteps()
+	{
+		return adaptiveSteps;
+	}
+
+	/**
+	 * Sets whether each update is split into smaller steps when entities move
+	 * fast. A quiet scene still takes one step, but a fast shot takes enough
+	 * that nothing moves more than half its radius at once
+	 * 
+	 * @param adaptiveSteps Whether adaptive steps are on
+	 */
+	public synchronized void setAdaptiveSteps(boolean adaptiveSteps)
+	{
+		this.adaptiveSteps = adaptiveSteps;
+	}
+
+	/**
+	 * Gets how many threads are used to find which entities are colliding
+	 * 
+	 * @return the amount of threads
+	 */
+	public int getNarrowPhaseThreads()
+	{
+		return narrowPhase.getThreads();
+	}
+
+	/**
+	 * Sets how many threads are used to find which entities are colliding.
+	 * The simulation turns out exactly the same with any amount of threads
+	 * 
+	 * @param threads The amount of threads, where 1 finds them on the thread
+	 *            calling update()
+	 */
+	public synchronized void setNarrowPhaseThreads(int threads)
+	{
+		narrowPhase.setThreads(threads);
+	}
+
+	/**
+	 * Sets the size of a cell for the spatial hash broad phase
+	 * 
+	 * @param cellSize The width and height of a cell in pixels
+	 */
+	public synchronized void setCellSize(double cellSize)
+	{
+		this.cellSize = cellSize;
+		if (broadPhase instanceof SpatialHashGrid)
+		{
+			((SpatialHashGrid) broadPhase).setCellSize(cellSize);
+		}
+	}
+
 	/**
 	 * Fires a projectile
 	 * 
 	 * @param power The power to fire at
 	 * @param angle The angle
 	 */
-	public void fireProjectile(int power, int angle)
+	public synchronized void fireProjectile(int power, int angle)
+	{
+		Projectile2D c = projectilePool.acquire();
+		// Waking it up stops it, so set its velocity after
+		c.setSleeping(false);
+		c.setHandling(false);
+		getLaunchPoint(c.loc);
+		getLaunchVelocity(power, angle, c.vel);
+		c.markGeometryChanged();
+		this.addEntity(c);
+	}
+
+	/**
+	 * Removes the last fired projectile and fires a new one in its place,
+	 * without an update happening in between
+	 * 
+	 * @param power The power to fire at
+	 * @param angle The angle
+	 * @return the amount of updates done before the projectile was fired
+	 */
+	public synchronized long replaceProjectile(int power, int angle)
+	{
+		removeLastProjectile();
+		fireProjectile(power, angle);
+		return tickCount;
+	}
+
+	/**
+	 * Checks if nothing in the world can move any more, because every entity
+	 * with physics is asleep
+	 * 
+	 * @return whether the world is at rest
+	 */
+	public synchronized boolean isAtRest()
+	{
+		for (int index = 0; index < entities.size(); index++)
+		{
+			Entity2D entity = entities.get(index);
+			if (entity.hasPhysics() && !entity.isSleeping())
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the point that projectiles are fired from
+	 * 
+	 * @return a new vector at the launch point
+	 */
+	public Vector2D getLaunchPoint()
+	{
+		return getLaunchPoint(new Vector2D());
+	}
+
+	/**
+	 * Gets the point that projectiles are fired from, without making a new
+	 * vector
+	 * 
+	 * @param result The vector to set to the launch point
+	 * @return the result vector
+	 */
+	public Vector2D getLaunchPoint(Vector2D result)
+	{
+		return result.set(50, height - 50);
+	}
+
+	/**
+	 * Gets the velocity that a projectile is fired with
+	 * 
+	 * @param power The power to fire at
+	 * @param angle The angle in degrees, where 0 is straight to the right
+	 * @return a new vector with the velocity
+	 */
+	public static Vector2D getLaunchVelocity(int power, int angle)
+	{
+		return getLaunchVelocity(power, angle, new Vector2D());
+	}
+
+	/**
+	 * Gets the velocity that a projectile is fired with, without making a new
+	 * vector
+	 * 
+	 * @param power The power to fire at
+	 * @param angle The angle in degrees, where 0 is straight to the right
+	 * @param result The vector to set to the velocity
+	 * @return the result vector
+	 */
+	public static Vector2D getLaunchVelocity(int power, int angle,
+			Vector2D result)
 	{
 		double vecX = Math.cos(Math.toRadians(180 - angle)) * power / 9;
 		double vecY = Math.sin(Math.toRadians(180 - angle)) * power / 9;
-		Vector2D vel = new Vector2D(vecX, vecY);
+		return result.set(vecX, vecY);
+	}
 
-		Projectile2D c = new Projectile2D(new Vector2D(50, height - 50), vel,
-				10);
-		this.addEntity(c);
+	/**
+	 * Gets the width of the world
+	 * 
+	 * @return the width in pixels
+	 */
+	public int getWidth()
+	{
+		return width;
+	}
+
+	/**
+	 * Gets the height of the world
+	 * 
+	 * @return the height in pixels
+	 */
+	public int getHeight()
+	{
+		return height;
 	}
 }
@@ -0,0 +1,163 @@
+package game.physics;
+
+import game.level.Level;
+import game.level.Replay;
+import game.physics.util.GameLogger;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Plays back a Replay by firing its shots into a physics engine, and removing
+ * its projectiles, at the same updates they were recorded at. It can drive an
+ * engine by itself as fast as possible, or fire the shots into an engine that
+ * is being updated somewhere else, such as by a SimulationThread
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class ReplayPlayer
+{
+	private static final Logger LOGGER = GameLogger.LOGGER;
+
+	private final Replay replay;
+	private int nextShot;
+	private int nextRemoval;
+	private volatile Replay.Shot lastShot;
+
+	/**
+	 * Constructs a player at the start of a replay
+	 * 
+	 * @param replay The replay to play
+	 */
+	public ReplayPlayer(Replay replay)
+	{
+		this.replay = replay;
+		this.nextShot = 0;
+		this.nextRemoval = 0;
+		this.lastShot = null;
+	}
+
+	/**
+	 * Fires every shot and makes every removal that is due before the
+	 * engine's next update, in the order they were recorded. It should be
+	 * called before every update, with the replay's level loaded
+	 * 
+	 * @param engine The physics engine to fire into
+	 */
+	public void fireDueShots(PhysicsEngine engine)
+	{
+		List<Replay.Shot> shots = replay.getShots();
+		List<Replay.Removal> removals = replay.getRemovals();
+		long tick = engine.getTickCount();
+		while (true)
+		{
+			// A removal is due once the shots fired before it have been
+			if (nextRemoval < removals.size()
+					&& removals.get(nextRemoval).getTick() <= tick
+					&& removals.get(nextRemoval).getShotsBefore() <= nextShot)
+			{
+				engine.removeLastProjectile();
+				nextRemoval++;
+			}
+			else if (nextShot < shots.size()
+					&& shots.get(nextShot).getTick() <= tick)
+			{
+				Replay.Shot shot = shots.get(nextShot);
+				engine.replaceProjectile(shot.getPower(), shot.getAngle());
+				lastShot = shot;
+				nextShot++;
+			}
+			else
+			{
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Plays the whole replay in a new physics engine as fast as possible,
+	 * without drawing anything. It stops when the level is won, or once every
+	 * shot is fired and the world is at rest or has run for the tick limit
+	 * 
+	 * @param level The level the replay was recorded on, which isn't changed
+	 * @param tickLimit The most updates to do after the last shot
+	 * @return the amount of updates done when the level was won, or -1 if it
+	 *         wasn't won
+	 */
+	public long play(Level level, int tickLimit)
+	{
+		return play(new PhysicsEngine(replay.getWidth(), replay.getHeight()),
+				level, tickLimit);
+	}
+
+	/**
+	 * Plays the whole replay in a physics engine as fast as possible, the
+	 * same as play(Level, int), so that many replays can be played in one
+	 * engine. The engine must be the size the replay was recorded at
+	 * 
+	 * @param engine The physics engine, which the level is loaded into
+	 * @param level The level the replay was recorded on, which isn't changed
+	 * @param tickLimit The most updates to do after the last shot
+	 * @return the amount of updates done when the level was won, or -1 if it
+	 *         wasn't won
+	 */
+	public long play(PhysicsEngine engine, Level level, int tickLimit)
+	{
+		if (replay.getEngineVersion() != PhysicsEngine.VERSION)
+		{
+			LOGGER.warning("Replay was recorded on engine version "
+					+ replay.getEngineVersion() + ", playing on version "
+					+ PhysicsEngine.VERSION);
+		}
+
+		engine.loadWorld(level.getMetadata(),
+				level.getEntitiesCloneSharingStatic());
+		long lastShotTick = replay.getLastEventTick();
+		while (engine.getTickCount() < lastShotTick + tickLimit)
+		{
+			fireDueShots(engine);
+			engine.update();
+			if (engine.hasWon())
+			{
+				return engine.getWonTick();
+			}
+			if (isFinished() && engine.isAtRest())
+			{
+				break;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks if every shot has been fired and every removal made
+	 * 
+	 * @return whether the replay has nothing more to do
+	 */
+	public boolean isFinished()
+	{
+		return nextShot >= replay.getShots().size()
+				&& nextRemoval >= replay.getRemovals().size();
+	}
+
+	/**
+	 * Gets the shot fired most recently
+	 * 
+	 * @return the last shot fired, or null if none have been fired yet
+	 */
+	public Replay.Shot getLastShot()
+	{
+		return lastShot;
+	}
+
+	/**
+	 * Gets the replay being played
+	 * 
+	 * @return the replay
+	 */
+	public Replay getReplay()
+	{
+		return replay;
+	}
+}
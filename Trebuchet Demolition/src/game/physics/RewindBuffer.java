@@ -0,0 +1,296 @@
+package game.physics;
+
+import game.physics.entity.Entity2D;
+import game.physics.util.Vector2D;
+
+/**
+ * Keeps the state of the world for the last few updates, so the physics
+ * engine can be wound back and forth through them. The state of the entities
+ * is packed into arrays that are made once and reused, so capturing an update
+ * doesn't clone any entities or make any new objects. Only entities with
+ * physics are stored, since nothing else is ever moved by the engine
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class RewindBuffer
+{
+	private static final int SLEEPING = 1;
+	private static final int HANDLING = 2;
+
+	private final int capacity;
+
+	/**
+	 * The entities in the engine for each update. The same array is shared
+	 * by every update until the entities are changed
+	 */
+	private final Entity2D[][] layouts;
+	/**
+	 * The points and velocity of each entity with physics, one after another
+	 */
+	private final double[][] values;
+	/**
+	 * Whether each entity with physics is asleep or handling a collision,
+	 * followed by how long it has been resting
+	 */
+	private final int[][] flags;
+	private final long[] ticks;
+	private final long[] wonTicks;
+	private final boolean[] won;
+	private final int[] collisions;
+
+	private int oldest;
+	private int count;
+	private int cursor;
+
+	/**
+	 * How much room the last layout captured needs, so it is only counted
+	 * again when the entities change
+	 */
+	private Entity2D[] sizedLayout;
+	private int valueCount;
+	private int flagCount;
+
+	/**
+	 * Constructs an empty rewind buffer
+	 * 
+	 * @param capacity The most updates that are kept
+	 */
+	public RewindBuffer(int capacity)
+	{
+		this.capacity = capacity;
+		this.layouts = new Entity2D[capacity][];
+		this.values = new double[capacity][0];
+		this.flags = new int[capacity][0];
+		this.ticks = new long[capacity];
+		this.wonTicks = new long[capacity];
+		this.won = new boolean[capacity];
+		this.collisions = new int[capacity];
+		clear();
+	}
+
+	/**
+	 * Stores the state of the world after an update. Anything after the
+	 * update that was last restored is thrown away, and the oldest update is
+	 * dropped once the buffer is full
+	 * 
+	 * @param layout The entities in the engine, in order
+	 * @param tick The amount of updates done
+	 * @param hasWon Whether the player has won
+	 * @param wonTick The update the player won in, or -1
+	 * @param collisionsInTick The amount of collisions in the update
+	 */
+	public void capture(Entity2D[] layout, long tick, boolean hasWon,
+			long wonTick, int collisionsInTick)
+	{
+		count = cursor + 1;
+		if (count == capacity)
+		{
+			oldest = (oldest + 1) % capacity;
+			count--;
+		}
+		int slot = (oldest + count) % capacity;
+		count++;
+		cursor = count - 1;
+
+		layouts[slot] = layout;
+		ticks[slot] = tick;
+		wonTicks[slot] = wonTick;
+		won[slot] = hasWon;
+		collisions[slot] = collisionsInTick;
+
+		// Find how much room the entities need, and only grow the arrays
+		if (layout != sizedLayout)
+		{
+			valueCount = 0;
+			flagCount = 0;
+			for (Entity2D entity : layout)
+			{
+				if (entity.hasPhysics())
+				{
+					valueCount += entity.getPointArray().length * 2 + 2;
+					flagCount += 2;
+				}
+			}
+			sizedLayout = layout;
+		}
+		if (values[slot].length < valueCount)
+		{
+			values[slot] = new double[valueCount];
+		}
+		if (flags[slot].length < flagCount)
+		{
+			flags[slot] = new int[flagCount];
+		}
+
+		double[] slotValues = values[slot];
+		int[] slotFlags = flags[slot];
+		int value = 0;
+		int flag = 0;
+		for (Entity2D entity : layout)
+		{
+			if (!entity.hasPhysics())
+			{
+				continue;
+			}
+			for (Vector2D point : entity.getPointArray())
+			{
+				slotValues[value++] = point.x;
+				slotValues[value++] = point.y;
+			}
+			slotValues[value++] = entity.vel.x;
+			slotValues[value++] = entity.vel.y;
+			slotFlags[flag++] = (entity.isSleeping() ? SLEEPING : 0)
+					| (entity.isHandling() ? HANDLING : 0);
+			slotFlags[flag++] = entity.getRestingTicks();
+		}
+	}
+
+	/**
+	 * Moves back through the stored updates, or forward if some have been
+	 * moved back through. Nothing is restored until restore() is called
+	 * 
+	 * @param amount The amount of updates to move back, or forward if
+	 *            negative
+	 * @return the amount of updates actually moved back, which is less when
+	 *         the oldest or newest update is reached
+	 */
+	public int seek(int amount)
+	{
+		int target = Math.min(Math.max(cursor - amount, 0), count - 1);
+		int moved = cursor - target;
+		cursor = target;
+		return moved;
+	}
+
+	/**
+	 * Puts the entities back into the state they were in at the current
+	 * update
+	 * 
+	 * @return the entities that were in the engine at the update, in order
+	 */
+	public Entity2D[] restore()
+	{
+		int slot = currentSlot();
+		Entity2D[] layout = layouts[slot];
+		double[] slotValues = values[slot];
+		int[] slotFlags = flags[slot];
+		int value = 0;
+		int flag = 0;
+		for (Entity2D entity : layout)
+		{
+			if (!entity.hasPhysics())
+			{
+				continue;
+			}
+			for (Vector2D point : entity.getPointArray())
+			{
+				point.x = slotValues[value++];
+				point.y = slotValues[value++];
+			}
+			entity.markGeometryChanged();
+			// Putting an entity to sleep stops it, so set its velocity after
+			entity.setSleeping((slotFlags[flag] & SLEEPING) != 0);
+			entity.setHandling((slotFlags[flag++] & HANDLING) != 0);
+			entity.setRestingTicks(slotFlags[flag++]);
+			entity.vel.x = slotValues[value++];
+			entity.vel.y = slotValues[value++];
+		}
+		return layout;
+	}
+
+	/**
+	 * Throws away every stored update
+	 */
+	public void clear()
+	{
+		for (int slot = 0; slot < capacity; slot++)
+		{
+			layouts[slot] = null;
+		}
+		oldest = 0;
+		count = 0;
+		cursor = -1;
+		sizedLayout = null;
+	}
+
+	/**
+	 * Gets the amount of updates the current one can be moved back by
+	 * 
+	 * @return the amount of updates before the current one
+	 */
+	public int getRewindableTicks()
+	{
+		return Math.max(cursor, 0);
+	}
+
+	/**
+	 * Checks if any updates are stored
+	 * 
+	 * @return whether the buffer is empty
+	 */
+	public boolean isEmpty()
+	{
+		return count == 0;
+	}
+
+	/**
+	 * Gets the most updates that are kept
+	 * 
+	 * @return the capacity of the buffer
+	 */
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	/**
+	 * Gets the amount of updates the engine had done at the current update
+	 * 
+	 * @return the amount of updates
+	 */
+	public long getTick()
+	{
+		return ticks[currentSlot()];
+	}
+
+	/**
+	 * Gets the update the player won in, as of the current update
+	 * 
+	 * @return the update the player won in, or -1
+	 */
+	public long getWonTick()
+	{
+		return wonTicks[currentSlot()];
+	}
+
+	/**
+	 * Checks if the player had won at the current update
+	 * 
+	 * @return whether the player had won
+	 */
+	public boolean hasWon()
+	{
+		return won[currentSlot()];
+	}
+
+	/**
+	 * Gets the amount of collisions in the current update
+	 * 
+	 * @return the amount of collisions
+	 */
+	public int getCollisions()
+	{
+		return collisions[currentSlot()];
+	}
+
+	/**
+	 * Gets where the current update is stored
+	 * 
+	 * @return the index of the slot
+	 */
+	private int currentSlot()
+	{
+		return (oldest + cursor) % capacity;
+	}
+}
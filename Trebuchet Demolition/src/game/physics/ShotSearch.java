@@ -0,0 +1,133 @@
+package game.physics;
+
+import game.level.Level;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds every shot that wins a level by firing it in its own world of a
+ * WorldBatch, so unlike the BallisticSolver it also finds shots that bounce
+ * off walls and other entities first. The batch only makes one physics
+ * engine for each thread, and loads every shot into one of them
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class ShotSearch
+{
+	/**
+	 * The default amount of updates a shot is given to hit the target
+	 */
+	public static final int DEFAULT_TICK_LIMIT = WorldBatch.DEFAULT_TICK_LIMIT;
+
+	private final Level level;
+	private final int width;
+	private final int height;
+	private int tickLimit;
+	private int threads;
+
+	/**
+	 * Constructs a search over a level, which fires on as many threads as
+	 * there are processors
+	 * 
+	 * @param level The level to fire at, which isn't changed
+	 * @param width The width of the world in pixels
+	 * @param height The height of the world in pixels
+	 */
+	public ShotSearch(Level level, int width, int height)
+	{
+		this.level = level;
+		this.width = width;
+		this.height = height;
+		this.tickLimit = DEFAULT_TICK_LIMIT;
+		this.threads = Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Fires every power at every angle, and finds the shots that win
+	 * 
+	 * @return the shots that win, by angle and then by power
+	 */
+	public List<ShotSolution> search()
+	{
+		final int powers = BallisticSolver.MAX_POWER + 1;
+		int shots = powers * (BallisticSolver.MAX_ANGLE + 1);
+		final ShotSolution[] results = new ShotSolution[shots];
+		WorldBatch batch = new WorldBatch(level, width, height);
+		batch.setTickLimit(tickLimit);
+		batch.setThreads(threads);
+		batch.run(shots, new WorldSetup()
+		{
+			@Override
+			public void setUp(int shot, PhysicsEngine engine)
+			{
+				engine.fireProjectile(shot % powers, shot / powers);
+			}
+		}, new WorldListener()
+		{
+			@Override
+			public void worldFinished(int shot, WorldOutcome outcome,
+					int ticks)
+			{
+				if (outcome == WorldOutcome.WON)
+				{
+					results[shot] = new ShotSolution(shot % powers, shot
+							/ powers, ticks);
+				}
+			}
+		});
+
+		// Keep the order the same no matter which thread fired which shot
+		List<ShotSolution> solutions = new ArrayList<ShotSolution>();
+		for (ShotSolution result : results)
+		{
+			if (result != null)
+			{
+				solutions.add(result);
+			}
+		}
+		return solutions;
+	}
+
+	/**
+	 * Gets the amount of updates a shot is given to hit the target
+	 * 
+	 * @return the amount of updates
+	 */
+	public int getTickLimit()
+	{
+		return tickLimit;
+	}
+
+	/**
+	 * Sets the amount of updates a shot is given to hit the target
+	 * 
+	 * @param tickLimit The amount of updates
+	 */
+	public void setTickLimit(int tickLimit)
+	{
+		this.tickLimit = tickLimit;
+	}
+
+	/**
+	 * Gets how many threads shots are fired on
+	 * 
+	 * @return the amount of threads
+	 */
+	public int getThreads()
+	{
+		return threads;
+	}
+
+	/**
+	 * Sets how many threads shots are fired on. The shots found are the same
+	 * either way
+	 * 
+	 * @param threads The amount of threads
+	 */
+	public void setThreads(int threads)
+	{
+		this.threads = Math.max(threads, 1);
+	}
+}
@@ -0,0 +1,107 @@
+package game.physics;
+
+import game.level.Level;
+
+import java.util.List;
+
+/**
+ * A shot which hits a target, found by the BallisticSolver
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class ShotSolution
+{
+	private final int power;
+	private final int angle;
+	private final int ticks;
+
+	/**
+	 * Constructs a shot solution
+	 * 
+	 * @param power The power to fire at
+	 * @param angle The angle to fire at
+	 * @param ticks The amount of updates until the target is hit
+	 */
+	public ShotSolution(int power, int angle, int ticks)
+	{
+		this.power = power;
+		this.angle = angle;
+		this.ticks = ticks;
+	}
+
+	/**
+	 * Gets the power to fire at
+	 * 
+	 * @return the power
+	 */
+	public int getPower()
+	{
+		return power;
+	}
+
+	/**
+	 * Gets the angle to fire at
+	 * 
+	 * @return the angle in degrees
+	 */
+	public int getAngle()
+	{
+		return angle;
+	}
+
+	/**
+	 * Gets how many updates it takes for the shot to hit the target
+	 * 
+	 * @return the amount of updates
+	 */
+	public int getTicks()
+	{
+		return ticks;
+	}
+
+	/**
+	 * Gets the score the shot would get, if the engine is updated at a fixed
+	 * rate
+	 * 
+	 * @param tickRate The time between updates in milliseconds
+	 * @return the score, where lower is better
+	 */
+	public int getScore(int tickRate)
+	{
+		return Level.computeScore((long) ticks * tickRate, power);
+	}
+
+	/**
+	 * Finds the shot with the lowest score
+	 * 
+	 * @param solutions The shots to pick from
+	 * @param tickRate The time between updates in milliseconds
+	 * @return the shot with the lowest score, and then the fewest updates, or
+	 *         null if there are no shots
+	 */
+	public static ShotSolution findCheapest(List<ShotSolution> solutions,
+			int tickRate)
+	{
+		ShotSolution cheapest = null;
+		int cheapestScore = 0;
+		for (ShotSolution solution : solutions)
+		{
+			int score = solution.getScore(tickRate);
+			if (cheapest == null || score < cheapestScore
+					|| (score == cheapestScore && solution.ticks < cheapest.ticks))
+			{
+				cheapest = solution;
+				cheapestScore = score;
+			}
+		}
+		return cheapest;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("power %d angle %d in %d ticks", power, angle,
+				ticks);
+	}
+}
@@ -0,0 +1,11 @@
+package game.physics;
+
+/**
+ * Stores the ways the physics engine can resolve collisions between entities
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public enum SolverType {
+	ELASTIC, IMPULSE;
+}
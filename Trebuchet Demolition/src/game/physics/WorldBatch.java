@@ -0,0 +1,230 @@
+package game.physics;
+
+import game.level.Level;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many independent worlds loaded from the same level on a pool of
+ * threads. Every world shares the level's static geometry, since nothing ever
+ * moves it, and gets its own copy of everything else. Each thread keeps one
+ * physics engine and loads the worlds it runs into it one after another, so
+ * no matter how many worlds are run, only one engine is made per thread
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class WorldBatch
+{
+	/**
+	 * The default amount of updates each world is given
+	 */
+	public static final int DEFAULT_TICK_LIMIT = 1000;
+
+	private final Level level;
+	private final int width;
+	private final int height;
+	/**
+	 * The engine each thread runs its worlds in, kept between runs
+	 */
+	private PhysicsEngine[] engines;
+	private int tickLimit;
+	private int threads;
+
+	/**
+	 * Constructs a batch for a level, which runs on as many threads as there
+	 * are processors
+	 * 
+	 * @param level The level the worlds are loaded from, which isn't changed
+	 * @param width The width of each world in pixels
+	 * @param height The height of each world in pixels
+	 */
+	public WorldBatch(Level level, int width, int height)
+	{
+		this.level = level;
+		this.width = width;
+		this.height = height;
+		this.engines = new PhysicsEngine[0];
+		this.tickLimit = DEFAULT_TICK_LIMIT;
+		this.threads = Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Runs every world until it is won, until nothing in it can move any
+	 * more, or until it runs out of updates. Once they have all finished, the
+	 * listener is told about them in the order they finished, and worlds that
+	 * finished in the same update in order of their index, so it sees the same
+	 * thing no matter how many threads are used
+	 * 
+	 * @param worlds The amount of worlds to run
+	 * @param setup Sets up each world once the level is loaded into it
+	 * @param listener The listener to tell how each world finished
+	 */
+	public void run(int worlds, WorldSetup setup, WorldListener listener)
+	{
+		if (engines.length < threads)
+		{
+			int made = engines.length;
+			engines = Arrays.copyOf(engines, threads);
+			for (int engine = made; engine < threads; engine++)
+			{
+				engines[engine] = new PhysicsEngine(width, height);
+			}
+		}
+
+		final WorldOutcome[] outcomes = new WorldOutcome[worlds];
+		final int[] ticks = new int[worlds];
+		AtomicInteger nextWorld = new AtomicInteger();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try
+		{
+			List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+			for (int thread = 0; thread < threads; thread++)
+			{
+				tasks.add(pool.submit(new WorldTask(engines[thread],
+						nextWorld, worlds, setup, outcomes, ticks)));
+			}
+			for (ForkJoinTask<?> task : tasks)
+			{
+				task.join();
+			}
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+
+		// The sort is stable, so worlds that finish together stay in order
+		Integer[] order = new Integer[worlds];
+		for (int world = 0; world < worlds; world++)
+		{
+			order[world] = world;
+		}
+		Arrays.sort(order, new Comparator<Integer>()
+		{
+			@Override
+			public int compare(Integer a, Integer b)
+			{
+				if (ticks[a] != ticks[b])
+				{
+					return ticks[a] < ticks[b] ? -1 : 1;
+				}
+				// Worlds are only out of updates once the last update is done
+				boolean aOut = outcomes[a] == WorldOutcome.TICK_LIMIT;
+				boolean bOut = outcomes[b] == WorldOutcome.TICK_LIMIT;
+				return aOut == bOut ? 0 : (aOut ? 1 : -1);
+			}
+		});
+		for (int world : order)
+		{
+			listener.worldFinished(world, outcomes[world], ticks[world]);
+		}
+	}
+
+	/**
+	 * Gets the amount of updates each world is given
+	 * 
+	 * @return the amount of updates
+	 */
+	public int getTickLimit()
+	{
+		return tickLimit;
+	}
+
+	/**
+	 * Sets the amount of updates each world is given
+	 * 
+	 * @param tickLimit The amount of updates
+	 */
+	public void setTickLimit(int tickLimit)
+	{
+		this.tickLimit = tickLimit;
+	}
+
+	/**
+	 * Gets how many threads the worlds are run on
+	 * 
+	 * @return the amount of threads
+	 */
+	public int getThreads()
+	{
+		return threads;
+	}
+
+	/**
+	 * Sets how many threads the worlds are run on. Each world turns out the
+	 * same either way
+	 * 
+	 * @param threads The amount of threads
+	 */
+	public void setThreads(int threads)
+	{
+		this.threads = Math.max(threads, 1);
+	}
+
+	/**
+	 * Runs worlds in one engine until there are none left to run
+	 */
+	private class WorldTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final PhysicsEngine engine;
+		private final AtomicInteger nextWorld;
+		private final int worlds;
+		private final WorldSetup setup;
+		private final WorldOutcome[] outcomes;
+		private final int[] ticks;
+
+		WorldTask(PhysicsEngine engine, AtomicInteger nextWorld, int worlds,
+				WorldSetup setup, WorldOutcome[] outcomes, int[] ticks)
+		{
+			this.engine = engine;
+			this.nextWorld = nextWorld;
+			this.worlds = worlds;
+			this.setup = setup;
+			this.outcomes = outcomes;
+			this.ticks = ticks;
+		}
+
+		@Override
+		protected void compute()
+		{
+			Properties metadata = level.getMetadata();
+			for (int world = nextWorld.getAndIncrement(); world < worlds;
+					world = nextWorld.getAndIncrement())
+			{
+				engine.loadWorld(metadata,
+						level.getEntitiesCloneSharingStatic());
+				setup.setUp(world, engine);
+
+				outcomes[world] = WorldOutcome.TICK_LIMIT;
+				ticks[world] = tickLimit;
+				for (int tick = 1; tick <= tickLimit; tick++)
+				{
+					engine.update();
+					if (engine.hasWon())
+					{
+						outcomes[world] = WorldOutcome.WON;
+						ticks[world] = tick;
+						break;
+					}
+					else if (engine.isAtRest())
+					{
+						outcomes[world] = WorldOutcome.AT_REST;
+						ticks[world] = tick;
+						break;
+					}
+				}
+			}
+		}
+	}
+}
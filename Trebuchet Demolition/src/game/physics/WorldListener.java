@@ -0,0 +1,21 @@
+package game.physics;
+
+/**
+ * Told about each world in a WorldBatch as it finishes
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public interface WorldListener
+{
+	/**
+	 * Called on the thread running the batch, once every world has finished.
+	 * The engine the world ran in has already been used for other worlds, so
+	 * only how it finished is kept
+	 * 
+	 * @param world The index of the world
+	 * @param outcome How the world finished
+	 * @param ticks The amount of updates the world was given
+	 */
+	public void worldFinished(int world, WorldOutcome outcome, int ticks);
+}
@@ -0,0 +1,11 @@
+package game.physics;
+
+/**
+ * Stores the ways a world in a WorldBatch can finish
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public enum WorldOutcome {
+	WON, AT_REST, TICK_LIMIT;
+}
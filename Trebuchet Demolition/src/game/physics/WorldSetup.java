@@ -0,0 +1,20 @@
+package game.physics;
+
+/**
+ * Sets up each world in a WorldBatch after the level is loaded into it, such
+ * as by firing a projectile
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public interface WorldSetup
+{
+	/**
+	 * Called on the thread that runs the world, just before it is first
+	 * updated
+	 * 
+	 * @param world The index of the world
+	 * @param engine The physics engine, with the level just loaded into it
+	 */
+	public void setUp(int world, PhysicsEngine engine);
+}
@@ -0,0 +1,160 @@
+package game.physics;
+
+import game.physics.entity.Entity2D;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A copy of the physics engine's entities at the end of an update, so it can
+ * be drawn from another thread without locking the engine. Snapshots are
+ * reused: the engine copies the state of its entities into mirrors that are
+ * only made again when the entities change, so writing one doesn't make any
+ * new objects. A snapshot must not be written while anything is reading it,
+ * so readers retain() it first and release() it when they are done
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class WorldSnapshot
+{
+	private Entity2D[] entities;
+	/**
+	 * The entity in the engine that each mirror was made from, so a mirror
+	 * only has to be made again when the entity at its index changes
+	 */
+	private Entity2D[] sources;
+	private int count;
+	private long tick;
+	private boolean won;
+
+	private final AtomicInteger readers;
+
+	/**
+	 * Constructs an empty snapshot
+	 */
+	public WorldSnapshot()
+	{
+		this.entities = new Entity2D[0];
+		this.sources = new Entity2D[0];
+		this.count = 0;
+		this.tick = 0;
+		this.won = false;
+		this.readers = new AtomicInteger();
+	}
+
+	/**
+	 * Copies the state of the engine's entities into the snapshot. Entities
+	 * without physics never move, so they are shared instead of copied
+	 * 
+	 * @param engineEntities The entities in the engine, in order
+	 * @param tick The amount of updates the engine had done
+	 * @param won Whether the player had won
+	 */
+	void write(List<Entity2D> engineEntities, long tick, boolean won)
+	{
+		int size = engineEntities.size();
+		if (entities.length < size)
+		{
+			int capacity = Math.max(size, entities.length * 2);
+			entities = Arrays.copyOf(entities, capacity);
+			sources = Arrays.copyOf(sources, capacity);
+		}
+		for (int index = 0; index < size; index++)
+		{
+			Entity2D entity = engineEntities.get(index);
+			if (!entity.hasPhysics())
+			{
+				entities[index] = entity;
+				sources[index] = entity;
+			}
+			else if (sources[index] == entity && entities[index] != entity)
+			{
+				entities[index].copyState(entity);
+			}
+			else
+			{
+				entities[index] = entity.createMirror();
+				sources[index] = entity;
+			}
+		}
+		// Don't hold on to entities which have been removed
+		if (count > size)
+		{
+			Arrays.fill(entities, size, count, null);
+			Arrays.fill(sources, size, count, null);
+		}
+		this.count = size;
+		this.tick = tick;
+		this.won = won;
+	}
+
+	/**
+	 * Marks the snapshot as being read, so it isn't written until it is
+	 * release()d
+	 */
+	public void retain()
+	{
+		readers.incrementAndGet();
+	}
+
+	/**
+	 * Marks the snapshot as no longer being read by one reader
+	 */
+	public void release()
+	{
+		readers.decrementAndGet();
+	}
+
+	/**
+	 * Checks if anything is reading the snapshot
+	 * 
+	 * @return whether the snapshot is retained by any readers
+	 */
+	public boolean isRetained()
+	{
+		return readers.get() > 0;
+	}
+
+	/**
+	 * Gets the amount of entities in the snapshot
+	 * 
+	 * @return the amount of entities
+	 */
+	public int getEntityCount()
+	{
+		return count;
+	}
+
+	/**
+	 * Gets an entity in the snapshot. It must not be changed
+	 * 
+	 * @param index The index of the entity
+	 * @return the entity
+	 */
+	public Entity2D getEntity(int index)
+	{
+		return entities[index];
+	}
+
+	/**
+	 * Gets the amount of updates the engine had done when the snapshot was made
+	 * 
+	 * @return the amount of updates
+	 */
+	public long getTick()
+	{
+		return tick;
+	}
+
+	/**
+	 * Checks if the player had won when the snapshot was made
+	 * 
+	 * @return whether the player had won
+	 */
+	public boolean hasWon()
+	{
+		return won;
+	}
+}
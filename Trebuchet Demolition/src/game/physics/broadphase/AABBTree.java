@@ -0,0 +1,542 @@
+package game.physics.broadphase;
+
+import game.physics.entity.Entity2D;
+import game.physics.util.IndexList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A broad phase which stores every entity as a leaf in a balanced tree of
+ * bounding boxes. Each leaf is given a slightly larger ("fat") box, so the tree
+ * only has to change when an entity moves outside of it. Unlike a grid, it
+ * doesn't care how different in size the entities are
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class AABBTree extends BroadPhase
+{
+	/**
+	 * How far a leaf's box is grown past the entity on every side, in pixels
+	 */
+	public static final double FAT_MARGIN = 10;
+
+	private Node root;
+	private Node[] leaves;
+	private int count;
+	private ArrayList<Node> freeNodes;
+
+	private Node[] stack;
+
+	/**
+	 * Constructs an empty tree
+	 */
+	public AABBTree()
+	{
+		this.root = null;
+		this.leaves = new Node[0];
+		this.count = 0;
+		this.freeNodes = new ArrayList<Node>();
+		this.stack = new Node[64];
+	}
+
+	@Override
+	public void rebuild(List<Entity2D> entities, IndexList statics,
+			IndexList dynamics)
+	{
+		super.rebuild(entities, statics, dynamics);
+
+		// Take every leaf out, then put every entity back in
+		for (int index = 0; index < count; index++)
+		{
+			removeLeaf(leaves[index]);
+			freeNode(leaves[index]);
+			leaves[index] = null;
+		}
+		count = entities.size();
+		if (leaves.length < count)
+		{
+			leaves = new Node[minX.length];
+		}
+		for (int index = 0; index < count; index++)
+		{
+			Node leaf = allocateNode();
+			leaf.index = index;
+			fatten(leaf, index);
+			insertLeaf(leaf);
+			leaves[index] = leaf;
+		}
+	}
+
+	@Override
+	public void update(List<Entity2D> entities)
+	{
+		computeDynamicBounds(entities);
+		for (int item = 0; item < dynamics.size(); item++)
+		{
+			int index = dynamics.get(item);
+			Node leaf = leaves[index];
+			if (!containsBounds(leaf, index))
+			{
+				// Only touch the tree when the entity leaves its fat box
+				removeLeaf(leaf);
+				fatten(leaf, index);
+				insertLeaf(leaf);
+			}
+		}
+	}
+
+	@Override
+	public void query(int index, IndexList out)
+	{
+		out.clear();
+		int size = 0;
+		if (root != null)
+		{
+			stack[size++] = root;
+		}
+		while (size > 0)
+		{
+			Node node = stack[--size];
+			if (node.overlaps(minX[index], minY[index], maxX[index],
+					maxY[index]))
+			{
+				if (node.isLeaf())
+				{
+					// The fat box overlapped, now check the real bounds
+					if (node.index != index && overlaps(index, node.index))
+					{
+						out.add(node.index);
+					}
+				}
+				else
+				{
+					size = push(node.child1, size);
+					size = push(node.child2, size);
+				}
+			}
+		}
+		out.sort();
+	}
+
+	/**
+	 * Finds every entity whose bounds overlap a region, as of the last
+	 * update()
+	 * 
+	 * @param x1 The left edge of the region
+	 * @param y1 The top edge of the region
+	 * @param x2 The right edge of the region
+	 * @param y2 The bottom edge of the region
+	 * @param out The list to fill with the indices of the entities, in
+	 *            ascending order
+	 */
+	public void queryRegion(double x1, double y1, double x2, double y2,
+			IndexList out)
+	{
+		out.clear();
+		int size = 0;
+		if (root != null)
+		{
+			stack[size++] = root;
+		}
+		while (size > 0)
+		{
+			Node node = stack[--size];
+			if (node.overlaps(x1, y1, x2, y2))
+			{
+				if (node.isLeaf())
+				{
+					int index = node.index;
+					if (maxX[index] >= x1 && minX[index] <= x2
+							&& maxY[index] >= y1 && minY[index] <= y2)
+					{
+						out.add(index);
+					}
+				}
+				else
+				{
+					size = push(node.child1, size);
+					size = push(node.child2, size);
+				}
+			}
+		}
+		out.sort();
+	}
+
+	/**
+	 * Finds every entity whose bounds contain a point, as of the last update()
+	 * 
+	 * @param x The x coordinate of the point
+	 * @param y The y coordinate of the point
+	 * @param out The list to fill with the indices of the entities, in
+	 *            ascending order
+	 */
+	public void queryPoint(double x, double y, IndexList out)
+	{
+		queryRegion(x, y, x, y, out);
+	}
+
+	/**
+	 * Gets the amount of entities in the tree
+	 * 
+	 * @return the amount of entities as of the last rebuild()
+	 */
+	public int size()
+	{
+		return count;
+	}
+
+	/**
+	 * Pushes a node onto the traversal stack, growing it if needed
+	 * 
+	 * @param node The node to push
+	 * @param size The current size of the stack
+	 * @return the new size of the stack
+	 */
+	private int push(Node node, int size)
+	{
+		if (size == stack.length)
+		{
+			Node[] bigger = new Node[size * 2];
+			System.arraycopy(stack, 0, bigger, 0, size);
+			stack = bigger;
+		}
+		stack[size] = node;
+		return size + 1;
+	}
+
+	/**
+	 * Sets the box of a leaf to the bounds of its entity plus the margin
+	 * 
+	 * @param leaf The leaf to fatten
+	 * @param index The index of the leaf's entity
+	 */
+	private void fatten(Node leaf, int index)
+	{
+		leaf.minX = minX[index] - FAT_MARGIN;
+		leaf.minY = minY[index] - FAT_MARGIN;
+		leaf.maxX = maxX[index] + FAT_MARGIN;
+		leaf.maxY = maxY[index] + FAT_MARGIN;
+	}
+
+	/**
+	 * Checks whether the bounds of an entity are still inside its fat box
+	 * 
+	 * @param leaf The leaf of the entity
+	 * @param index The index of the entity
+	 * @return whether the bounds are inside the leaf's box
+	 */
+	private boolean containsBounds(Node leaf, int index)
+	{
+		return minX[index] >= leaf.minX && minY[index] >= leaf.minY
+				&& maxX[index] <= leaf.maxX && maxY[index] <= leaf.maxY;
+	}
+
+	/**
+	 * Inserts a leaf next to whichever node makes the tree grow the least
+	 * 
+	 * @param leaf The leaf to insert
+	 */
+	private void insertLeaf(Node leaf)
+	{
+		if (root == null)
+		{
+			root = leaf;
+			leaf.parent = null;
+			return;
+		}
+
+		// Walk down the tree, choosing the cheapest child every time
+		Node sibling = root;
+		while (!sibling.isLeaf())
+		{
+			double area = sibling.perimeter();
+			double combinedArea = Node.unionPerimeter(sibling, leaf);
+
+			// Cost of making a new parent for this node and the leaf
+			double cost = 2 * combinedArea;
+			// Cost of pushing the leaf further down the tree
+			double inheritanceCost = 2 * (combinedArea - area);
+
+			double cost1 = descendCost(sibling.child1, leaf) + inheritanceCost;
+			double cost2 = descendCost(sibling.child2, leaf) + inheritanceCost;
+			if (cost < cost1 && cost < cost2)
+			{
+				break;
+			}
+			sibling = cost1 < cost2 ? sibling.child1 : sibling.child2;
+		}
+
+		// Make a new parent for the sibling and the leaf
+		Node oldParent = sibling.parent;
+		Node newParent = allocateNode();
+		newParent.parent = oldParent;
+		newParent.setUnion(sibling, leaf);
+		newParent.height = sibling.height + 1;
+		if (oldParent != null)
+		{
+			if (oldParent.child1 == sibling)
+			{
+				oldParent.child1 = newParent;
+			}
+			else
+			{
+				oldParent.child2 = newParent;
+			}
+		}
+		else
+		{
+			root = newParent;
+		}
+		newParent.child1 = sibling;
+		newParent.child2 = leaf;
+		sibling.parent = newParent;
+		leaf.parent = newParent;
+
+		refit(leaf.parent);
+	}
+
+	/**
+	 * Gets the cost of putting the leaf somewhere under a node
+	 * 
+	 * @param node The node to descend into
+	 * @param leaf The leaf being inserted
+	 * @return the cost of descending into the node
+	 */
+	private double descendCost(Node node, Node leaf)
+	{
+		if (node.isLeaf())
+		{
+			return Node.unionPerimeter(node, leaf);
+		}
+		return Node.unionPerimeter(node, leaf) - node.perimeter();
+	}
+
+	/**
+	 * Takes a leaf out of the tree, and joins its sibling to its grandparent
+	 * 
+	 * @param leaf The leaf to remove
+	 */
+	private void removeLeaf(Node leaf)
+	{
+		if (leaf == root)
+		{
+			root = null;
+			return;
+		}
+
+		Node parent = leaf.parent;
+		Node grandParent = parent.parent;
+		Node sibling = parent.child1 == leaf ? parent.child2 : parent.child1;
+		if (grandParent != null)
+		{
+			if (grandParent.child1 == parent)
+			{
+				grandParent.child1 = sibling;
+			}
+			else
+			{
+				grandParent.child2 = sibling;
+			}
+			sibling.parent = grandParent;
+			freeNode(parent);
+			refit(grandParent);
+		}
+		else
+		{
+			root = sibling;
+			sibling.parent = null;
+			freeNode(parent);
+		}
+		leaf.parent = null;
+	}
+
+	/**
+	 * Walks up the tree from a node, balancing it and recomputing the boxes
+	 * and heights
+	 * 
+	 * @param node The node to start at
+	 */
+	private void refit(Node node)
+	{
+		while (node != null)
+		{
+			node = balance(node);
+			node.height = 1 + Math.max(node.child1.height, node.child2.height);
+			node.setUnion(node.child1, node.child2);
+			node = node.parent;
+		}
+	}
+
+	/**
+	 * Rotates a node if one of its children is much taller than the other
+	 * 
+	 * @param a The node to balance
+	 * @return the node which is now in the place of the given one
+	 */
+	private Node balance(Node a)
+	{
+		if (a.isLeaf() || a.height < 2)
+		{
+			return a;
+		}
+
+		Node b = a.child1;
+		Node c = a.child2;
+		int difference = c.height - b.height;
+
+		if (difference > 1)
+		{
+			// Rotate C up
+			Node f = c.child1;
+			Node g = c.child2;
+			c.child1 = a;
+			c.parent = a.parent;
+			a.parent = c;
+			replaceChild(c.parent, a, c);
+
+			if (f.height > g.height)
+			{
+				c.child2 = f;
+				a.child2 = g;
+				g.parent = a;
+			}
+			else
+			{
+				c.child2 = g;
+				a.child2 = f;
+				f.parent = a;
+			}
+			a.setUnion(a.child1, a.child2);
+			a.height = 1 + Math.max(a.child1.height, a.child2.height);
+			c.setUnion(a, c.child2);
+			c.height = 1 + Math.max(a.height, c.child2.height);
+			return c;
+		}
+		if (difference < -1)
+		{
+			// Rotate B up
+			Node d = b.child1;
+			Node e = b.child2;
+			b.child1 = a;
+			b.parent = a.parent;
+			a.parent = b;
+			replaceChild(b.parent, a, b);
+
+			if (d.height > e.height)
+			{
+				b.child2 = d;
+				a.child1 = e;
+				e.parent = a;
+			}
+			else
+			{
+				b.child2 = e;
+				a.child1 = d;
+				d.parent = a;
+			}
+			a.setUnion(a.child1, a.child2);
+			a.height = 1 + Math.max(a.child1.height, a.child2.height);
+			b.setUnion(a, b.child2);
+			b.height = 1 + Math.max(a.height, b.child2.height);
+			return b;
+		}
+		return a;
+	}
+
+	/**
+	 * Points a parent at a new child instead of an old one, or makes the new
+	 * child the root if there isn't a parent
+	 * 
+	 * @param parent The parent, or null
+	 * @param oldChild The child being replaced
+	 * @param newChild The child replacing it
+	 */
+	private void replaceChild(Node parent, Node oldChild, Node newChild)
+	{
+		if (parent == null)
+		{
+			root = newChild;
+		}
+		else if (parent.child1 == oldChild)
+		{
+			parent.child1 = newChild;
+		}
+		else
+		{
+			parent.child2 = newChild;
+		}
+	}
+
+	/**
+	 * Gets a node, reusing an old one if possible
+	 * 
+	 * @return an empty node
+	 */
+	private Node allocateNode()
+	{
+		if (freeNodes.isEmpty())
+		{
+			return new Node();
+		}
+		return freeNodes.remove(freeNodes.size() - 1);
+	}
+
+	/**
+	 * Gives back a node so it can be reused
+	 * 
+	 * @param node The node which is no longer in the tree
+	 */
+	private void freeNode(Node node)
+	{
+		node.parent = null;
+		node.child1 = null;
+		node.child2 = null;
+		node.height = 0;
+		freeNodes.add(node);
+	}
+
+	/**
+	 * A node in the tree. Leaves hold the index of an entity, other nodes hold
+	 * two children and a box around both of them
+	 */
+	private static class Node
+	{
+		double minX, minY, maxX, maxY;
+		Node parent, child1, child2;
+		int index;
+		int height;
+
+		boolean isLeaf()
+		{
+			return child1 == null;
+		}
+
+		double perimeter()
+		{
+			return 2 * ((maxX - minX) + (maxY - minY));
+		}
+
+		boolean overlaps(double x1, double y1, double x2, double y2)
+		{
+			return maxX >= x1 && minX <= x2 && maxY >= y1 && minY <= y2;
+		}
+
+		void setUnion(Node a, Node b)
+		{
+			minX = Math.min(a.minX, b.minX);
+			minY = Math.min(a.minY, b.minY);
+			maxX = Math.max(a.maxX, b.maxX);
+			maxY = Math.max(a.maxY, b.maxY);
+		}
+
+		static double unionPerimeter(Node a, Node b)
+		{
+			double width = Math.max(a.maxX, b.maxX) - Math.min(a.minX, b.minX);
+			double height = Math.max(a.maxY, b.maxY)
+					- Math.min(a.minY, b.minY);
+			return 2 * (width + height);
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package game.physics.broadphase;
+
+import game.physics.entity.Entity2D;
+import game.physics.util.IndexList;
+
+import java.util.List;
+
+/**
+ * A broad phase which doesn't filter anything, so every entity gets checked
+ * against every other entity. Useful to compare the other broad phases against
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class AllPairsBroadPhase extends BroadPhase
+{
+	private int count;
+
+	@Override
+	public void rebuild(List<Entity2D> entities, IndexList statics,
+			IndexList dynamics)
+	{
+		count = entities.size();
+	}
+
+	@Override
+	public void update(List<Entity2D> entities)
+	{
+		// Nothing to keep track of
+	}
+
+	@Override
+	public void query(int index, IndexList out)
+	{
+		out.clear();
+		for (int other = 0; other < count; other++)
+		{
+			if (other != index)
+			{
+				out.add(other);
+			}
+		}
+	}
+}
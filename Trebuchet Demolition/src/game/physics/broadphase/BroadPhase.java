@@ -0,0 +1,142 @@
+package game.physics.broadphase;
+
+import game.physics.entity.AABB2D;
+import game.physics.entity.Entity2D;
+import game.physics.util.IndexList;
+
+import java.util.List;
+
+/**
+ * Finds which entities are close enough to possibly collide, so that the
+ * physics engine only has to do the exact collision checks on those
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public abstract class BroadPhase
+{
+	/**
+	 * The bounds of every entity, by index. Static entities only get their
+	 * bounds stored on rebuild()
+	 */
+	protected double[] minX, minY, maxX, maxY;
+
+	/**
+	 * Which entities never move, and the indices of the entities that do
+	 */
+	protected boolean[] isStatic;
+	protected IndexList dynamics;
+
+	/**
+	 * Constructs a broad phase
+	 */
+	public BroadPhase()
+	{
+		this.minX = new double[0];
+		this.minY = new double[0];
+		this.maxX = new double[0];
+		this.maxY = new double[0];
+		this.isStatic = new boolean[0];
+		this.dynamics = new IndexList();
+	}
+
+	/**
+	 * Indexes all the entities from scratch. This has to be called whenever
+	 * entities are added or removed, since the index of each entity in the list
+	 * is what gets returned by query()
+	 * 
+	 * @param entities The entities in the physics engine
+	 * @param statics The indices of the entities that never move
+	 * @param dynamics The indices of the entities that move
+	 */
+	public void rebuild(List<Entity2D> entities, IndexList statics,
+			IndexList dynamics)
+	{
+		int count = entities.size();
+		if (minX.length < count)
+		{
+			int capacity = Math.max(count, minX.length * 2);
+			minX = new double[capacity];
+			minY = new double[capacity];
+			maxX = new double[capacity];
+			maxY = new double[capacity];
+			isStatic = new boolean[capacity];
+		}
+		this.dynamics = dynamics;
+		for (int index = 0; index < statics.size(); index++)
+		{
+			isStatic[statics.get(index)] = true;
+			computeBounds(entities, statics.get(index));
+		}
+		for (int index = 0; index < dynamics.size(); index++)
+		{
+			isStatic[dynamics.get(index)] = false;
+			computeBounds(entities, dynamics.get(index));
+		}
+	}
+
+	/**
+	 * Updates the broad phase with the current positions of the moving
+	 * entities
+	 * 
+	 * @param entities The entities in the physics engine
+	 */
+	public abstract void update(List<Entity2D> entities);
+
+	/**
+	 * Finds every entity whose bounds overlap the bounds of the given entity
+	 * 
+	 * @param index The index of a moving entity
+	 * @param out The list to fill with the indices of nearby entities, in
+	 *            ascending order and not including the given entity
+	 */
+	public abstract void query(int index, IndexList out);
+
+	/**
+	 * Stores the bounds of every moving entity
+	 * 
+	 * @param entities The entities in the physics engine
+	 */
+	protected void computeDynamicBounds(List<Entity2D> entities)
+	{
+		for (int index = 0; index < dynamics.size(); index++)
+		{
+			computeBounds(entities, dynamics.get(index));
+		}
+	}
+
+	/**
+	 * Stores the bounds of an entity
+	 * 
+	 * @param entities The entities in the physics engine
+	 * @param index The index of the entity
+	 */
+	protected void computeBounds(List<Entity2D> entities, int index)
+	{
+		Entity2D entity = entities.get(index);
+		AABB2D bounds = entity.getBoundingBox();
+
+		// Every collision is found before anything moves, and fast circles are
+		// then swept along their velocity against the pairs found, so sweep
+		// the bounds by the velocity to cover where the entity ends up
+		double sweepX = Math.abs(entity.vel.x);
+		double sweepY = Math.abs(entity.vel.y);
+		minX[index] = bounds.p1.x - sweepX;
+		minY[index] = bounds.p1.y - sweepY;
+		maxX[index] = bounds.p2.x + sweepX;
+		maxY[index] = bounds.p2.y + sweepY;
+	}
+
+	/**
+	 * Checks whether the stored bounds of two entities overlap
+	 * 
+	 * @param a The index of the first entity
+	 * @param b The index of the second entity
+	 * @return whether the bounds overlap
+	 */
+	protected boolean overlaps(int a, int b)
+	{
+		return maxX[a] >= minX[b] && minX[a] <= maxX[b] && maxY[a] >= minY[b]
+				&& minY[a] <= maxY[b];
+	}
+}
@@ -0,0 +1,14 @@
+package game.physics.broadphase;
+
+/**
+ * Stores all the broad phases the physics engine can use to find which
+ * entities might be colliding. They only change how fast an update is, and
+ * every one of them plays the physics out the same, which the broadphases
+ * scene in RegressionRun checks
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public enum BroadPhaseType {
+	ALL_PAIRS, SPATIAL_HASH, SWEEP_AND_PRUNE, AABB_TREE;
+}
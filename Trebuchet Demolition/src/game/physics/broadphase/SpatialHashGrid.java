@@ -0,0 +1,250 @@
+package game.physics.broadphase;
+
+import game.physics.entity.Entity2D;
+import game.physics.util.IndexList;
+
+import java.util.List;
+
+/**
+ * A broad phase which hashes the bounds of every entity into a uniform grid of
+ * cells, so that only entities sharing a cell have to be checked against each
+ * other
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class SpatialHashGrid extends BroadPhase
+{
+	/**
+	 * The cell size used when a level doesn't specify one
+	 */
+	public static final double DEFAULT_CELL_SIZE = 64;
+
+	// Large primes used to spread cell coordinates across the buckets
+	private static final int HASH_PRIME_X = 73856093;
+	private static final int HASH_PRIME_Y = 19349663;
+
+	private double cellSize;
+
+	/**
+	 * Static entities are hashed once on rebuild(), and moving entities are
+	 * hashed again every tick into their own buckets
+	 */
+	private IndexList[] staticBuckets;
+	private IndexList[] dynamicBuckets;
+	private IndexList usedBuckets;
+
+	/**
+	 * Stamps entities that have already been added to a query, so an entity
+	 * spanning many cells is only returned once
+	 */
+	private int[] queryMarks;
+	private int queryStamp;
+
+	/**
+	 * Constructs a spatial hash grid
+	 * 
+	 * @param cellSize The width and height of a cell in pixels
+	 */
+	public SpatialHashGrid(double cellSize)
+	{
+		this.staticBuckets = new IndexList[0];
+		this.dynamicBuckets = new IndexList[0];
+		this.usedBuckets = new IndexList();
+		this.queryMarks = new int[0];
+		setCellSize(cellSize);
+	}
+
+	/**
+	 * Gets the width and height of a cell
+	 * 
+	 * @return the width and height of a cell in pixels
+	 */
+	public double getCellSize()
+	{
+		return cellSize;
+	}
+
+	/**
+	 * Sets the width and height of a cell, which takes effect on the next
+	 * rebuild()
+	 * 
+	 * @param cellSize The width and height of a cell in pixels
+	 */
+	public void setCellSize(double cellSize)
+	{
+		if (!(cellSize > 0))
+		{
+			cellSize = DEFAULT_CELL_SIZE;
+		}
+		this.cellSize = cellSize;
+	}
+
+	@Override
+	public void rebuild(List<Entity2D> entities, IndexList statics,
+			IndexList dynamics)
+	{
+		super.rebuild(entities, statics, dynamics);
+
+		int count = entities.size();
+		if (queryMarks.length < count)
+		{
+			queryMarks = new int[minX.length];
+			queryStamp = 0;
+		}
+		// Keep at least two buckets for every entity, as a power of two
+		int bucketCount = Integer.highestOneBit(Math.max(count, 32)) * 4;
+		if (staticBuckets.length != bucketCount)
+		{
+			staticBuckets = createBuckets(bucketCount);
+			dynamicBuckets = createBuckets(bucketCount);
+		}
+		else
+		{
+			for (int bucket = 0; bucket < bucketCount; bucket++)
+			{
+				staticBuckets[bucket].clear();
+				dynamicBuckets[bucket].clear();
+			}
+		}
+		usedBuckets.clear();
+
+		for (int index = 0; index < statics.size(); index++)
+		{
+			insert(staticBuckets, statics.get(index), null);
+		}
+	}
+
+	@Override
+	public void update(List<Entity2D> entities)
+	{
+		// Only empty the buckets which were filled last time
+		for (int bucket = 0; bucket < usedBuckets.size(); bucket++)
+		{
+			dynamicBuckets[usedBuckets.get(bucket)].clear();
+		}
+		usedBuckets.clear();
+
+		computeDynamicBounds(entities);
+		for (int index = 0; index < dynamics.size(); index++)
+		{
+			insert(dynamicBuckets, dynamics.get(index), usedBuckets);
+		}
+	}
+
+	@Override
+	public void query(int index, IndexList out)
+	{
+		out.clear();
+		queryStamp++;
+		queryMarks[index] = queryStamp;
+
+		int cellMinX = toCell(minX[index]);
+		int cellMinY = toCell(minY[index]);
+		int cellMaxX = toCell(maxX[index]);
+		int cellMaxY = toCell(maxY[index]);
+		for (int cellX = cellMinX; cellX <= cellMaxX; cellX++)
+		{
+			for (int cellY = cellMinY; cellY <= cellMaxY; cellY++)
+			{
+				int bucket = hash(cellX, cellY);
+				collect(index, staticBuckets[bucket], out);
+				collect(index, dynamicBuckets[bucket], out);
+			}
+		}
+		// Keep the same order as checking against every entity would
+		out.sort();
+	}
+
+	/**
+	 * Adds the entities in a bucket which overlap an entity
+	 * 
+	 * @param index The index of the entity
+	 * @param bucket The bucket to look through
+	 * @param out The list to add the overlapping entities to
+	 */
+	private void collect(int index, IndexList bucket, IndexList out)
+	{
+		for (int item = 0; item < bucket.size(); item++)
+		{
+			int other = bucket.get(item);
+			if (queryMarks[other] != queryStamp)
+			{
+				queryMarks[other] = queryStamp;
+				// Different cells can share a bucket, so make sure the bounds
+				// actually overlap
+				if (overlaps(index, other))
+				{
+					out.add(other);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds an entity to every cell its bounds cover
+	 * 
+	 * @param buckets The buckets to add the entity to
+	 * @param index The index of the entity
+	 * @param used The list of buckets that have something in them, or null
+	 */
+	private void insert(IndexList[] buckets, int index, IndexList used)
+	{
+		int cellMinX = toCell(minX[index]);
+		int cellMinY = toCell(minY[index]);
+		int cellMaxX = toCell(maxX[index]);
+		int cellMaxY = toCell(maxY[index]);
+		for (int cellX = cellMinX; cellX <= cellMaxX; cellX++)
+		{
+			for (int cellY = cellMinY; cellY <= cellMaxY; cellY++)
+			{
+				int bucket = hash(cellX, cellY);
+				if (used != null && buckets[bucket].size() == 0)
+				{
+					used.add(bucket);
+				}
+				buckets[bucket].add(index);
+			}
+		}
+	}
+
+	/**
+	 * Gets the cell coordinate that a position falls in
+	 * 
+	 * @param position The position in pixels
+	 * @return the cell coordinate
+	 */
+	private int toCell(double position)
+	{
+		return (int) Math.floor(position / cellSize);
+	}
+
+	/**
+	 * Hashes a cell into a bucket
+	 * 
+	 * @param cellX The x coordinate of the cell
+	 * @param cellY The y coordinate of the cell
+	 * @return the bucket the cell belongs to
+	 */
+	private int hash(int cellX, int cellY)
+	{
+		return ((cellX * HASH_PRIME_X) ^ (cellY * HASH_PRIME_Y))
+				& (staticBuckets.length - 1);
+	}
+
+	/**
+	 * Creates a set of empty buckets
+	 * 
+	 * @param amount The amount of buckets, which must be a power of two
+	 * @return the empty buckets
+	 */
+	private IndexList[] createBuckets(int amount)
+	{
+		IndexList[] buckets = new IndexList[amount];
+		for (int bucket = 0; bucket < amount; bucket++)
+		{
+			buckets[bucket] = new IndexList(4);
+		}
+		return buckets;
+	}
+}
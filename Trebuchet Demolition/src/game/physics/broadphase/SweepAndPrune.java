@@ -0,0 +1,253 @@
+package game.physics.broadphase;
+
+import game.physics.entity.Entity2D;
+import game.physics.util.IndexList;
+
+import java.util.List;
+
+/**
+ * A broad phase which keeps the left and right edges of every entity sorted
+ * along the x axis, then sweeps through them to find which entities overlap.
+ * The sorted edges are kept between ticks, so only entities which moved have
+ * to be sorted again
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class SweepAndPrune extends BroadPhase
+{
+	private int count;
+
+	/**
+	 * The sorted endpoints. Each one is stored as the index of its entity
+	 * times two, plus one if it is the right edge
+	 */
+	private int[] endpoints;
+	private double[] endpointValues;
+
+	/**
+	 * Where the left and right edges of every entity are in the endpoints
+	 */
+	private int[] minPos, maxPos;
+
+	/**
+	 * The entities overlapping every entity, found by the last sweep
+	 */
+	private IndexList[] overlapping;
+	private IndexList active;
+
+	/**
+	 * Constructs a sweep and prune broad phase
+	 */
+	public SweepAndPrune()
+	{
+		this.count = 0;
+		this.endpoints = new int[0];
+		this.endpointValues = new double[0];
+		this.minPos = new int[0];
+		this.maxPos = new int[0];
+		this.overlapping = new IndexList[0];
+		this.active = new IndexList();
+	}
+
+	@Override
+	public void update(List<Entity2D> entities)
+	{
+		computeDynamicBounds(entities);
+
+		// Only move the edges of the entities that actually moved
+		for (int item = 0; item < dynamics.size(); item++)
+		{
+			int index = dynamics.get(item);
+			if (minX[index] != endpointValues[minPos[index]])
+			{
+				endpointValues[minPos[index]] = minX[index];
+				sortEndpoint(minPos[index]);
+			}
+			if (maxX[index] != endpointValues[maxPos[index]])
+			{
+				endpointValues[maxPos[index]] = maxX[index];
+				sortEndpoint(maxPos[index]);
+			}
+		}
+		sweep();
+	}
+
+	@Override
+	public void query(int index, IndexList out)
+	{
+		out.clear();
+		IndexList found = overlapping[index];
+		for (int other = 0; other < found.size(); other++)
+		{
+			out.add(found.get(other));
+		}
+		out.sort();
+	}
+
+	@Override
+	public void rebuild(List<Entity2D> entities, IndexList statics,
+			IndexList dynamics)
+	{
+		// Throw away the sorted endpoints and sort them again from scratch
+		super.rebuild(entities, statics, dynamics);
+
+		count = entities.size();
+		if (minPos.length < count)
+		{
+			int capacity = minX.length;
+			endpoints = new int[capacity * 2];
+			endpointValues = new double[capacity * 2];
+			minPos = new int[capacity];
+			maxPos = new int[capacity];
+
+			IndexList[] lists = new IndexList[capacity];
+			for (int index = 0; index < capacity; index++)
+			{
+				lists[index] = index < overlapping.length ? overlapping[index]
+						: new IndexList(4);
+			}
+			overlapping = lists;
+		}
+
+		for (int index = 0; index < count; index++)
+		{
+			endpoints[index * 2] = index * 2;
+			endpointValues[index * 2] = minX[index];
+			endpoints[index * 2 + 1] = index * 2 + 1;
+			endpointValues[index * 2 + 1] = maxX[index];
+			minPos[index] = index * 2;
+			maxPos[index] = index * 2 + 1;
+		}
+		for (int position = 1; position < count * 2; position++)
+		{
+			sortLeft(position);
+		}
+	}
+
+	/**
+	 * Moves a single endpoint left or right until the endpoints are in order
+	 * again, like one step of an insertion sort
+	 * 
+	 * @param position The position of the endpoint which changed
+	 */
+	private void sortEndpoint(int position)
+	{
+		position = sortLeft(position);
+		while (position < count * 2 - 1
+				&& comesBefore(position + 1, position))
+		{
+			swap(position, position + 1);
+			position++;
+		}
+	}
+
+	/**
+	 * Moves a single endpoint left until it is in order with the endpoints
+	 * before it
+	 * 
+	 * @param position The position of the endpoint
+	 * @return the new position of the endpoint
+	 */
+	private int sortLeft(int position)
+	{
+		while (position > 0 && comesBefore(position, position - 1))
+		{
+			swap(position, position - 1);
+			position--;
+		}
+		return position;
+	}
+
+	/**
+	 * Checks whether an endpoint belongs before another one. When both are at
+	 * the same place, left edges come first so touching entities overlap
+	 * 
+	 * @param a The position of the first endpoint
+	 * @param b The position of the second endpoint
+	 * @return whether the first endpoint belongs before the second
+	 */
+	private boolean comesBefore(int a, int b)
+	{
+		if (endpointValues[a] != endpointValues[b])
+		{
+			return endpointValues[a] < endpointValues[b];
+		}
+		return (endpoints[a] & 1) < (endpoints[b] & 1);
+	}
+
+	/**
+	 * Swaps two endpoints, and keeps track of where they are
+	 * 
+	 * @param a The position of the first endpoint
+	 * @param b The position of the second endpoint
+	 */
+	private void swap(int a, int b)
+	{
+		int endpoint = endpoints[a];
+		double value = endpointValues[a];
+		endpoints[a] = endpoints[b];
+		endpointValues[a] = endpointValues[b];
+		endpoints[b] = endpoint;
+		endpointValues[b] = value;
+		trackEndpoint(a);
+		trackEndpoint(b);
+	}
+
+	/**
+	 * Stores the position of an endpoint with its entity
+	 * 
+	 * @param position The position of the endpoint
+	 */
+	private void trackEndpoint(int position)
+	{
+		int endpoint = endpoints[position];
+		if ((endpoint & 1) == 0)
+		{
+			minPos[endpoint >> 1] = position;
+		}
+		else
+		{
+			maxPos[endpoint >> 1] = position;
+		}
+	}
+
+	/**
+	 * Sweeps through the sorted endpoints along the x axis, and stores which
+	 * entities also overlap along the y axis
+	 */
+	private void sweep()
+	{
+		for (int index = 0; index < count; index++)
+		{
+			overlapping[index].clear();
+		}
+		active.clear();
+
+		for (int position = 0; position < count * 2; position++)
+		{
+			int endpoint = endpoints[position];
+			int entity = endpoint >> 1;
+			if ((endpoint & 1) == 0)
+			{
+				// Every entity which is still open overlaps this one on x,
+				// but two static entities never need to be checked
+				for (int other = 0; other < active.size(); other++)
+				{
+					int otherEntity = active.get(other);
+					if (!(isStatic[entity] && isStatic[otherEntity])
+							&& overlaps(entity, otherEntity))
+					{
+						overlapping[entity].add(otherEntity);
+						overlapping[otherEntity].add(entity);
+					}
+				}
+				active.add(entity);
+			}
+			else
+			{
+				active.remove(entity);
+			}
+		}
+	}
+}
@@ -1,20 +1,7 @@
 package game.physics.entity;
 
-import game.GamePanel;
-import game.graphics.GraphicsTools;
-import game.physics.util.CollisionType;
-import game.physics.util.MathOperations;
 import game.physics.util.Vector2D;
 
-import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.Image;
-import java.awt.Paint;
-import java.awt.Rectangle;
-import java.awt.Shape;
-import java.awt.TexturePaint;
-import java.awt.geom.Rectangle2D;
-
 /**
  * Represents an Axis Aligned Bounding Box (AABB) which is an entity; a
  * rectangle without rotation
@@ -24,11 +11,11 @@ import java.awt.geom.Rectangle2D;
  */
 public class AABB2D extends Entity2D
 {
-	private static Image AABBTexture = GamePanel.metalTexture;
-
 	public Vector2D p1;
 	public Vector2D p2;
 
+	private Vector2D[] points = new Vector2D[2];
+
 	/**
 	 * Constructs an AABB
 	 * 
@@ -38,7 +25,7 @@ public class AABB2D extends Entity2D
 	 */
 	public AABB2D(Vector2D p1, Vector2D p2, Vector2D vel)
 	{
-		super(vel, AABBTexture);
+		super(vel);
 		this.p1 = p1;
 		this.p2 = p2;
 	}
@@ -53,11 +40,23 @@ public class AABB2D extends Entity2D
 	 */
 	public AABB2D(Vector2D p1, Vector2D p2, Vector2D vel, boolean physics)
 	{
-		super(vel, physics, AABBTexture);
+		super(vel, physics);
 		this.p1 = p1;
 		this.p2 = p2;
 	}
 
+	/**
+	 * Constructs a mirror of an AABB
+	 * 
+	 * @param original The AABB to mirror
+	 */
+	protected AABB2D(AABB2D original)
+	{
+		super(original);
+		this.p1 = original.p1.copy();
+		this.p2 = original.p2.copy();
+	}
+
 	@Override
 	public void translate(double x, double y)
 	{
@@ -66,6 +65,7 @@ public class AABB2D extends Entity2D
 			vector.x += x;
 			vector.y += y;
 		}
+		markGeometryChanged();
 	}
 
 	@Override
@@ -107,6 +107,10 @@ public class AABB2D extends Entity2D
 			this.vel.y = -this.vel.y / RESTITUTION;
 			hasCollided = true;
 		}
+		if (hasCollided)
+		{
+			markGeometryChanged();
+		}
 		return hasCollided;
 	}
 
@@ -137,48 +141,34 @@ public class AABB2D extends Entity2D
 	}
 
 	@Override
-	public CollisionType getCollisionState(Entity2D entity)
+	public ShapeKind getShapeKind()
 	{
-		if (entity instanceof AABB2D)
-		{
-			return MathOperations.hasAABBCollision(this, (AABB2D) entity);
-		}
-		return CollisionType.NO_COLLISION;
+		return ShapeKind.AABB;
 	}
 
 	@Override
-	public void drawEntity(Graphics2D g)
+	public boolean contains(double x, double y)
 	{
-		if (this.getTexture() == null)
-		{
-			Shape shape = this.getShape();
-			g.fill(shape);
-		}
-		else
-		{
-			Paint originalPaint = g.getPaint();
-			TexturePaint texturePaint = new TexturePaint(
-					GraphicsTools.bufferImage(AABBTexture), new Rectangle(0, 0,
-							GamePanel.TEXTURE_SIZE, GamePanel.TEXTURE_SIZE));
-			g.setPaint(texturePaint);
-			Shape poly = this.getShape();
-			g.fill(poly);
-			g.setPaint(originalPaint);
-			g.setColor(Color.DARK_GRAY);
-			g.draw(poly);
-		}
+		return x >= p1.x && y >= p1.y && x < p2.x && y < p2.y;
 	}
 
 	@Override
-	public Shape getShape()
+	public Vector2D[] getPointArray()
 	{
-		return new Rectangle2D.Double(p1.x, p1.y, getWidth(), getHeight());
+		points[0] = p1;
+		points[1] = p2;
+		return points;
 	}
 
+	/**
+	 * Gets the bounds around this AABB, which is the AABB itself
+	 * 
+	 * @return this AABB
+	 */
 	@Override
-	public Vector2D[] getPointArray()
+	public AABB2D getBoundingBox()
 	{
-		return new Vector2D[] { p1, p2 };
+		return this;
 	}
 
 	@Override
@@ -193,4 +183,10 @@ public class AABB2D extends Entity2D
 		return new AABB2D(p1.copy(), p2.copy(), this.vel.copy(),
 				this.hasPhysics());
 	}
+
+	@Override
+	public Entity2D createMirror()
+	{
+		return new AABB2D(this);
+	}
 }
@@ -1,20 +1,7 @@
 package game.physics.entity;
 
-import game.GamePanel;
-import game.graphics.GraphicsTools;
-import game.physics.util.CollisionType;
-import game.physics.util.MathOperations;
 import game.physics.util.Vector2D;
 
-import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.Image;
-import java.awt.Paint;
-import java.awt.Rectangle;
-import java.awt.Shape;
-import java.awt.TexturePaint;
-import java.awt.geom.Ellipse2D;
-
 /**
  * Represents a Circle which is an entity
  * 
@@ -23,10 +10,13 @@ import java.awt.geom.Ellipse2D;
  */
 public class Circle2D extends Entity2D
 {
-	private static Image circleTexture = GamePanel.metalTexture;
 	private int radius;
 	public Vector2D loc;
 
+	// Reused so that getting the points and bounds doesn't make new objects
+	private Vector2D[] points;
+	private AABB2D bounds;
+
 	/**
 	 * Creates a circle
 	 * 
@@ -36,9 +26,25 @@ public class Circle2D extends Entity2D
 	 */
 	public Circle2D(Vector2D loc, Vector2D vel, int radius)
 	{
-		super(vel, circleTexture);
+		super(vel);
 		this.loc = loc;
 		this.radius = radius;
+		this.points = new Vector2D[1];
+		this.bounds = new AABB2D(new Vector2D(), new Vector2D(), Vector2D.ZERO);
+	}
+
+	/**
+	 * Creates a mirror of a circle
+	 * 
+	 * @param original The circle to mirror
+	 */
+	protected Circle2D(Circle2D original)
+	{
+		super(original);
+		this.loc = original.loc.copy();
+		this.radius = original.radius;
+		this.points = new Vector2D[1];
+		this.bounds = new AABB2D(original.bounds);
 	}
 
 	@Override
@@ -47,6 +53,12 @@ public class Circle2D extends Entity2D
 		return new Circle2D(loc.copy(), this.vel.copy(), radius);
 	}
 
+	@Override
+	public Entity2D createMirror()
+	{
+		return new Circle2D(this);
+	}
+
 	@Override
 	public void translate(double x, double y)
 	{
@@ -55,6 +67,7 @@ public class Circle2D extends Entity2D
 			vector.x += x;
 			vector.y += y;
 		}
+		markGeometryChanged();
 	}
 
 	/**
@@ -101,110 +114,74 @@ public class Circle2D extends Entity2D
 			this.vel.y = -this.vel.y / RESTITUTION;
 			hasCollided = true;
 		}
+		if (hasCollided)
+		{
+			markGeometryChanged();
+		}
 		return hasCollided;
 	}
 
 	@Override
-	public CollisionType getCollisionState(Entity2D entity)
+	public ShapeKind getShapeKind()
 	{
-		// Check for this circle to another
-		if (entity instanceof Circle2D)
-		{
-			Circle2D circle = (Circle2D) entity;
-			int otherRadius = circle.getRadius();
-			int totalRadius = radius + otherRadius;
-			double ax = loc.x;
-			double ay = loc.y;
-			double bx = circle.loc.x;
-			double by = circle.loc.y;
-			totalRadius *= totalRadius;
-			double dist = (ax - bx) * (ax - bx) + (ay - by) * (ay - by);
-			if (totalRadius > dist)
-			{
-				return CollisionType.CIRCLE_TO_CIRCLE;
-			}
-			return CollisionType.NO_COLLISION;
-		}
-		// Check for this circle to a rectangle
-		else if (entity instanceof Rectangle2D)
-		{
-			Rectangle2D rect = (Rectangle2D) entity;
-			Vector2D center = this.loc;
-			double dist1 = MathOperations.pointToLineSegDistance(rect.p1,
-					rect.p2, center);
-			double dist2 = MathOperations.pointToLineSegDistance(rect.p2,
-					rect.p4, center);
-			double dist3 = MathOperations.pointToLineSegDistance(rect.p4,
-					rect.p3, center);
-			double dist4 = MathOperations.pointToLineSegDistance(rect.p3,
-					rect.p1, center);
-			double min = Math.min(dist1,
-					Math.min(dist2, Math.min(dist3, dist4)));
-
-			if (min < radius || rect.getShape().contains(center.x, center.y))
-			{
-				return CollisionType.CIRCLE_TO_RECT;
-			}
-			return CollisionType.NO_COLLISION;
-		}
-		// Check for this circle to an AABB, or a Target
-		else if (entity instanceof AABB2D)
-		{
-			AABB2D aabb = (AABB2D) entity;
-			AABB2D bounds = this.getBoundingBox();
-
-			CollisionType doesCollide = MathOperations.hasAABBCollision(aabb,
-					bounds);
-			if (doesCollide == CollisionType.AABB_TO_AABB)
-			{
-				return CollisionType.CIRCLE_TO_AABB;
-			}
-			return CollisionType.NO_COLLISION;
-		}
-		return CollisionType.NO_COLLISION;
+		return ShapeKind.CIRCLE;
 	}
 
-	@Override
-	public double getMass()
+	/**
+	 * Checks if another circle overlaps this one
+	 * 
+	 * @param circle The circle to check
+	 * @return whether the circles overlap
+	 */
+	public boolean overlaps(Circle2D circle)
 	{
-		return radius;
+		int otherRadius = circle.getRadius();
+		int totalRadius = radius + otherRadius;
+		double ax = loc.x;
+		double ay = loc.y;
+		double bx = circle.loc.x;
+		double by = circle.loc.y;
+		totalRadius *= totalRadius;
+		double dist = (ax - bx) * (ax - bx) + (ay - by) * (ay - by);
+		return totalRadius > dist;
+	}
+
+	/**
+	 * Checks if an AABB overlaps the bounds around this circle. Unlike
+	 * getBoundingBox(), this doesn't change anything, so it is safe to call
+	 * from many threads
+	 * 
+	 * @param aabb The AABB to check
+	 * @return whether the AABB overlaps the bounds
+	 */
+	public boolean overlapsBounds(AABB2D aabb)
+	{
+		if (aabb.p2.x < loc.x - radius || aabb.p1.x > loc.x + radius)
+			return false;
+		if (aabb.p2.y < loc.y - radius || aabb.p1.y > loc.y + radius)
+			return false;
+		return true;
 	}
 
 	@Override
-	public void drawEntity(Graphics2D g)
+	public double getMass()
 	{
-		if (this.getTexture() == null)
-		{
-			Shape shape = this.getShape();
-			g.fill(shape);
-		}
-		else
-		{
-			// Draws the texture on the circle
-			Paint originalPaint = g.getPaint();
-			TexturePaint texturePaint = new TexturePaint(
-					GraphicsTools.bufferImage(circleTexture), new Rectangle(0,
-							0, GamePanel.TEXTURE_SIZE, GamePanel.TEXTURE_SIZE));
-			g.setPaint(texturePaint);
-			Shape poly = this.getShape();
-			g.fill(poly);
-			g.setPaint(originalPaint);
-			g.setColor(Color.DARK_GRAY);
-			g.draw(poly);
-		}
+		return radius;
 	}
 
 	@Override
-	public Shape getShape()
+	public boolean contains(double x, double y)
 	{
-		return new Ellipse2D.Double(loc.x - radius, loc.y - radius, radius * 2,
-				radius * 2);
+		double dx = x - loc.x;
+		double dy = y - loc.y;
+		return dx * dx + dy * dy < radius * radius;
 	}
 
 	@Override
 	public Vector2D[] getPointArray()
 	{
-		return new Vector2D[] { loc };
+		points[0] = loc;
+		return points;
 	}
 
 	@Override
@@ -214,13 +191,16 @@ public class Circle2D extends Entity2D
 	}
 
 	/**
-	 * Gets the bounds around this circle
+	 * Gets the bounds around this circle. The same AABB is updated and
+	 * returned every time
 	 * 
 	 * @return the bounds around this circle as an AABB
 	 */
+	@Override
 	public AABB2D getBoundingBox()
 	{
-		return new AABB2D(new Vector2D(loc.x - radius, loc.y - radius),
-				new Vector2D(loc.x + radius, loc.y + radius), Vector2D.ZERO);
+		bounds.p1.set(loc.x - radius, loc.y - radius);
+		bounds.p2.set(loc.x + radius, loc.y + radius);
+		return bounds;
 	}
 }
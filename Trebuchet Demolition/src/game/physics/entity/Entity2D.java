@@ -1,11 +1,10 @@
 package game.physics.entity;
 
+import game.physics.util.CollisionTable;
 import game.physics.util.CollisionType;
 import game.physics.util.Vector2D;
 
-import java.awt.Graphics2D;
-import java.awt.Image;
-import java.awt.Shape;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents an entity
@@ -15,8 +14,11 @@ import java.awt.Shape;
  */
 public abstract class Entity2D implements Cloneable
 {
-	private Image texture;
-	private static int lastID = 0;
+	/**
+	 * Entities are cloned by worker threads as well as the game, so the ids
+	 * are handed out atomically
+	 */
+	private static final AtomicInteger lastID = new AtomicInteger();
 
 	private final int entityID;
 	private boolean handlingCollision;
@@ -25,20 +27,27 @@ public abstract class Entity2D implements Cloneable
 
 	private boolean hasPhysics;
 
+	private boolean sleeping;
+	private int restingTicks;
+
+	/**
+	 * Goes up every time the entity is moved or reshaped, so anything built
+	 * from its geometry knows when it has to be built again
+	 */
+	private int geometryVersion;
+
 	/**
 	 * Constructs an entity
 	 * 
 	 * @param vel The velocity
-	 * @param texture The texture image
 	 */
-	public Entity2D(Vector2D vel, Image texture)
+	public Entity2D(Vector2D vel)
 	{
-		this.entityID = lastID;
-		lastID++;
+		this.entityID = lastID.getAndIncrement();
 		this.handlingCollision = false;
-		this.vel = vel;
+		// Copy it, since the same vector is often passed to many entities
+		this.vel = vel.copy();
 		hasPhysics = true;
-		this.texture = texture;
 	}
 
 	/**
@@ -46,16 +55,30 @@ public abstract class Entity2D implements Cloneable
 	 * 
 	 * @param vel The velocity
 	 * @param hasPhysics Whether it has physics
-	 * @param texture The texture image
 	 */
-	public Entity2D(Vector2D vel, boolean hasPhysics, Image texture)
+	public Entity2D(Vector2D vel, boolean hasPhysics)
 	{
-		this.entityID = lastID;
-		lastID++;
+		this.entityID = lastID.getAndIncrement();
 		this.handlingCollision = false;
-		this.vel = vel;
+		// Copy it, since the same vector is often passed to many entities
+		this.vel = vel.copy();
 		this.hasPhysics = hasPhysics;
-		this.texture = texture;
+	}
+
+	/**
+	 * Constructs a mirror of an entity, which stands for the same entity and
+	 * so keeps its id instead of taking a new one
+	 * 
+	 * @param original The entity to mirror
+	 */
+	protected Entity2D(Entity2D original)
+	{
+		this.entityID = original.entityID;
+		this.handlingCollision = false;
+		this.vel = original.vel.copy();
+		this.hasPhysics = original.hasPhysics;
+		this.sleeping = original.sleeping;
+		this.restingTicks = original.restingTicks;
 	}
 
 	/**
@@ -66,12 +89,20 @@ public abstract class Entity2D implements Cloneable
 	public abstract Vector2D getCenter();
 
 	/**
-	 * Gets an array of all the points in the shape
+	 * Gets an array of all the points in the shape. The array may be reused
+	 * by the next call
 	 * 
 	 * @return an array of all the points in the shape
 	 */
 	public abstract Vector2D[] getPointArray();
 
+	/**
+	 * Gets the smallest axis aligned box which contains the whole entity
+	 * 
+	 * @return the bounding box around the entity
+	 */
+	public abstract AABB2D getBoundingBox();
+
 	/**
 	 * Returns whether the entity has physics or not
 	 * 
@@ -92,6 +123,53 @@ public abstract class Entity2D implements Cloneable
 		this.hasPhysics = hasPhysics;
 	}
 
+	/**
+	 * Checks if the entity is asleep, which means it has been resting for a
+	 * while and isn't being moved by the physics engine
+	 * 
+	 * @return whether the entity is asleep
+	 */
+	public boolean isSleeping()
+	{
+		return sleeping;
+	}
+
+	/**
+	 * Puts the entity to sleep, which stops it, or wakes it back up
+	 * 
+	 * @param sleeping Whether the entity should be asleep
+	 */
+	public void setSleeping(boolean sleeping)
+	{
+		this.sleeping = sleeping;
+		this.restingTicks = 0;
+		if (sleeping)
+		{
+			this.vel.zero();
+		}
+	}
+
+	/**
+	 * Gets how many updates in a row the entity has been moving slowly
+	 * 
+	 * @return the amount of updates the entity has been resting for
+	 */
+	public int getRestingTicks()
+	{
+		return restingTicks;
+	}
+
+	/**
+	 * Sets how many updates in a row the entity has been moving slowly
+	 * 
+	 * @param restingTicks The amount of updates the entity has been resting
+	 *            for
+	 */
+	public void setRestingTicks(int restingTicks)
+	{
+		this.restingTicks = restingTicks;
+	}
+
 	/**
 	 * Set the entity to not be handling any collisions
 	 * 
@@ -119,6 +197,27 @@ public abstract class Entity2D implements Cloneable
 		return handlingCollision;
 	}
 
+	/**
+	 * Marks the entity as moved or reshaped, so that anything built from its
+	 * geometry is built again. Anything that changes the points of an entity
+	 * directly must call this
+	 */
+	public void markGeometryChanged()
+	{
+		geometryVersion++;
+	}
+
+	/**
+	 * Gets how many times the entity has been moved or reshaped. Anything
+	 * built from the geometry is still correct while this stays the same
+	 * 
+	 * @return the version of the geometry
+	 */
+	public int getGeometryVersion()
+	{
+		return geometryVersion;
+	}
+
 	/**
 	 * Gets the entity ID
 	 * 
@@ -129,34 +228,41 @@ public abstract class Entity2D implements Cloneable
 		return entityID;
 	}
 
+	/**
+	 * Gets the kind of shape the entity is, which picks the collision checks
+	 * used against it
+	 * 
+	 * @return the kind of shape
+	 */
+	public abstract ShapeKind getShapeKind();
+
 	/**
 	 * Checks whether this entity has collided with another one
 	 * 
 	 * @param entity The entity to check if this entity has collided with
 	 * @return Whether this entity has collided with the given one
 	 */
-	public abstract CollisionType getCollisionState(Entity2D entity);
+	public CollisionType getCollisionState(Entity2D entity)
+	{
+		return CollisionTable.get(getShapeKind(), entity.getShapeKind()).test(
+				this, entity);
+	}
 
 	@Override
 	public String toString()
 	{
-		return String.format("%s r%dg%db%d id%d v%s a%s", this.getClass()
-				.getName(), entityID, vel.toString());
+		return String.format("%s id%d v%s", this.getClass().getName(),
+				entityID, vel.toString());
 	}
 
 	/**
-	 * Draws the entity onto the given graphics
+	 * Checks if a point is inside the entity
 	 * 
-	 * @param g The graphics to draw on
+	 * @param x The x coordinate of the point
+	 * @param y The y coordinate of the point
+	 * @return whether the point is inside the entity
 	 */
-	public abstract void drawEntity(Graphics2D g);
-
-	/**
-	 * Gets a Graphics2D shape representing the entity
-	 * 
-	 * @return a Shape object representing the entity
-	 */
-	public abstract Shape getShape();
+	public abstract boolean contains(double x, double y);
 
 	/**
 	 * Clones the entity, to make a completely new copy
@@ -165,35 +271,44 @@ public abstract class Entity2D implements Cloneable
 	public abstract Entity2D clone();
 
 	/**
-	 * Checks for a wall collision, and recovers from it
+	 * Makes a copy of the entity which keeps its id, for something that shows
+	 * the same entity at another time, such as a snapshot of the world. It is
+	 * kept up to date with copyState()
 	 * 
-	 * @param width The width in pixels
-	 * @param height The height in pixels
-	 * @param RESTITUTION The bounciness of the objects
-	 * @return whether the collision happened
+	 * @return the mirror
 	 */
-	public abstract boolean handleWallCollision(int width, int height,
-			final double RESTITUTION);
+	public abstract Entity2D createMirror();
 
 	/**
-	 * Gets this entity's textures
+	 * Copies the position, velocity and sleep of another entity into this
+	 * one, which has to be a mirror of it
 	 * 
-	 * @return this entity's textures
+	 * @param source The entity to copy from
 	 */
-	public Image getTexture()
+	public void copyState(Entity2D source)
 	{
-		return texture;
+		Vector2D[] from = source.getPointArray();
+		Vector2D[] to = this.getPointArray();
+		for (int point = 0; point < to.length; point++)
+		{
+			to[point].set(from[point]);
+		}
+		this.vel.set(source.vel);
+		this.sleeping = source.sleeping;
+		this.restingTicks = source.restingTicks;
+		markGeometryChanged();
 	}
 
 	/**
-	 * Sets this entity's textures
+	 * Checks for a wall collision, and recovers from it
 	 * 
-	 * @param texture The new texture of this entity
+	 * @param width The width in pixels
+	 * @param height The height in pixels
+	 * @param RESTITUTION The bounciness of the objects
+	 * @return whether the collision happened
 	 */
-	public void setTexture(Image texture)
-	{
-		this.texture = texture;
-	}
+	public abstract boolean handleWallCollision(int width, int height,
+			final double RESTITUTION);
 
 	/**
 	 * Moves the entity over by x and y
@@ -1,7 +1,5 @@
 package game.physics.entity;
 
-import game.physics.util.CollisionType;
-import game.physics.util.MathOperations;
 import game.physics.util.Vector2D;
 
 public class Projectile2D extends Circle2D
@@ -19,27 +17,32 @@ public class Projectile2D extends Circle2D
 		super(loc, vel, radius);
 	}
 
+	/**
+	 * Creates a mirror of a projectile
+	 * 
+	 * @param original The projectile to mirror
+	 */
+	protected Projectile2D(Projectile2D original)
+	{
+		super(original);
+	}
+
 	@Override
-	public CollisionType getCollisionState(Entity2D entity)
+	public Entity2D clone()
 	{
-		// Check if this projectile collided with a target, which means the game
-		// is won
-		if (entity instanceof Target2D)
-		{
-			Target2D target = (Target2D) entity;
-			AABB2D bounds = this.getBoundingBox();
+		return new Projectile2D(loc.copy(), this.vel.copy(), getRadius());
+	}
 
-			CollisionType doesCollide = MathOperations.hasAABBCollision(target,
-					bounds);
-			if (doesCollide == CollisionType.AABB_TO_AABB)
-			{
-				if (this instanceof Projectile2D)
-					return CollisionType.WINNING_COLLISION;
-				else
-					return CollisionType.CIRCLE_TO_AABB;
-			}
-			return CollisionType.NO_COLLISION;
-		}
-		return super.getCollisionState(entity);
+	@Override
+	public Entity2D createMirror()
+	{
+		return new Projectile2D(this);
+	}
+
+	@Override
+	public ShapeKind getShapeKind()
+	{
+		// Hitting a target with a projectile wins the game
+		return ShapeKind.PROJECTILE;
 	}
 }
@@ -1,19 +1,7 @@
 package game.physics.entity;
 
-import game.GamePanel;
-import game.graphics.GraphicsTools;
-import game.physics.util.CollisionType;
 import game.physics.util.Vector2D;
 
-import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.Image;
-import java.awt.Paint;
-import java.awt.Polygon;
-import java.awt.Rectangle;
-import java.awt.Shape;
-import java.awt.TexturePaint;
-
 /**
  * Represents a rectangle which is an entity, it doesn't actually have physics,
  * but is collidable
@@ -25,8 +13,6 @@ import java.awt.TexturePaint;
 public class Rectangle2D extends Entity2D
 {
 
-	private static Image rectTexture = GamePanel.rockTexture;
-
 	public Vector2D p1;
 	public Vector2D p2;
 	public Vector2D p3;
@@ -35,6 +21,32 @@ public class Rectangle2D extends Entity2D
 	public double angle;
 	public double angularVel;
 
+	private Vector2D[] points = new Vector2D[4];
+
+	/**
+	 * The rectangle is stored as its center, half its size before it is
+	 * rotated, and the cosine and sine of its angle. The corners are worked
+	 * out from these whenever they change, so rotating only needs the
+	 * trigonometry once, and rotating back and forth doesn't drift
+	 */
+	private double centerX, centerY;
+	private double halfWidth, halfHeight;
+	private double cos = 1, sin = 0;
+
+	/**
+	 * The directions of the edges from p1 to p2 and from p1 to p3
+	 */
+	private double widthAxisX, widthAxisY;
+	private double heightAxisX, heightAxisY;
+
+	/**
+	 * The bounds and the corners in order around the edges. Static
+	 * rectangles are shared between worlds on many threads, so these are
+	 * built when the rectangle is moved instead of when they are asked for
+	 */
+	private AABB2D bounds;
+	private Vector2D[] corners = new Vector2D[4];
+
 	/**
 	 * Constructs a rectangle
 	 * 
@@ -49,13 +61,26 @@ public class Rectangle2D extends Entity2D
 	public Rectangle2D(Vector2D p1, Vector2D p2, Vector2D p3, Vector2D p4,
 			Vector2D vel, double angle, double angularVel)
 	{
-		super(vel, false, rectTexture);
+		super(vel, false);
 		this.p1 = p1;
 		this.p2 = p2;
 		this.p3 = p3;
 		this.p4 = p4;
 		this.vel = vel;
 
+		// The points may already be rotated, so find the rotation from the
+		// first edge
+		this.centerX = (p1.x + p4.x) / 2;
+		this.centerY = (p1.y + p4.y) / 2;
+		double width = p1.distance(p2);
+		this.halfWidth = width / 2;
+		this.halfHeight = p1.distance(p3) / 2;
+		if (width > 0)
+		{
+			this.cos = (p2.x - p1.x) / width;
+			this.sin = (p2.y - p1.y) / width;
+		}
+		this.angle = Math.toDegrees(Math.atan2(this.sin, this.cos));
 		this.rotate(angle);
 		this.angularVel = angularVel;
 	}
@@ -68,15 +93,35 @@ public class Rectangle2D extends Entity2D
 	 */
 	public Rectangle2D(Vector2D p1, Vector2D p2)
 	{
-		super(Vector2D.ZERO, false, rectTexture);
-		this.p1 = p1;
-		this.p4 = p2;
-		this.p2 = new Vector2D(p2.x, p1.y);
-		this.p3 = new Vector2D(p1.x, p2.y);
+		super(Vector2D.ZERO, false);
+		this.p1 = new Vector2D();
+		this.p2 = new Vector2D();
+		this.p3 = new Vector2D();
+		this.p4 = new Vector2D();
+		this.centerX = (p1.x + p2.x) / 2;
+		this.centerY = (p1.y + p2.y) / 2;
+		this.halfWidth = Math.abs(p2.x - p1.x) / 2;
+		this.halfHeight = Math.abs(p2.y - p1.y) / 2;
 
 		this.angle = 0;
 		this.angularVel = 0;
-		this.angularVel = 0;
+		this.updateGeometry();
+	}
+
+	/**
+	 * Creates a mirror of a rectangle
+	 * 
+	 * @param original The rectangle to mirror
+	 */
+	protected Rectangle2D(Rectangle2D original)
+	{
+		super(original);
+		this.p1 = new Vector2D();
+		this.p2 = new Vector2D();
+		this.p3 = new Vector2D();
+		this.p4 = new Vector2D();
+		this.bounds = new AABB2D(original.bounds);
+		this.copyShape(original);
 	}
 
 	@Override
@@ -90,42 +135,70 @@ public class Rectangle2D extends Entity2D
 	@Override
 	public Entity2D clone()
 	{
-		return new Rectangle2D(p1.copy(), p2.copy(), p3.copy(), p4.copy(),
-				this.vel.copy(), this.angle, angularVel);
+		Rectangle2D copy = new Rectangle2D(new Vector2D(), new Vector2D());
+		copy.vel.set(this.vel);
+		copy.copyShape(this);
+		return copy;
 	}
 
 	@Override
-	public void drawEntity(Graphics2D g)
+	public Entity2D createMirror()
 	{
-		if (this.getTexture() == null)
-		{
-			Shape poly = this.getShape();
-			g.fill(poly);
-		}
-		else
-		{
-			Paint originalPaint = g.getPaint();
-			TexturePaint texturePaint = new TexturePaint(
-					GraphicsTools.bufferImage(rectTexture), new Rectangle(0, 0,
-							GamePanel.TEXTURE_SIZE, GamePanel.TEXTURE_SIZE));
-			g.setPaint(texturePaint);
-			Shape poly = this.getShape();
-			g.fill(poly);
-			g.setPaint(originalPaint);
-			g.setColor(Color.DARK_GRAY);
-			g.draw(poly);
+		return new Rectangle2D(this);
+	}
 
-		}
+	@Override
+	public void copyState(Entity2D source)
+	{
+		super.copyState(source);
+		copyShape((Rectangle2D) source);
+	}
+
+	/**
+	 * Makes this rectangle the same size and shape, and in the same place, as
+	 * another one
+	 * 
+	 * @param other The rectangle to copy
+	 */
+	private void copyShape(Rectangle2D other)
+	{
+		this.centerX = other.centerX;
+		this.centerY = other.centerY;
+		this.halfWidth = other.halfWidth;
+		this.halfHeight = other.halfHeight;
+		this.cos = other.cos;
+		this.sin = other.sin;
+		this.angle = other.angle;
+		this.angularVel = other.angularVel;
+		this.updateGeometry();
 	}
 
 	@Override
-	public Shape getShape()
+	public boolean contains(double x, double y)
 	{
-		int xPoly[] = { (int) p1.x, (int) p2.x, (int) p4.x, (int) p3.x };
-		int yPoly[] = { (int) p1.y, (int) p2.y, (int) p4.y, (int) p3.y };
+		// The point is inside if it is on the same side of every edge, going
+		// around the corners in order
+		double side1 = cross(p1, p2, x, y);
+		double side2 = cross(p2, p4, x, y);
+		double side3 = cross(p4, p3, x, y);
+		double side4 = cross(p3, p1, x, y);
+		return (side1 >= 0 && side2 >= 0 && side3 >= 0 && side4 >= 0)
+				|| (side1 <= 0 && side2 <= 0 && side3 <= 0 && side4 <= 0);
+	}
 
-		Polygon poly = new Polygon(xPoly, yPoly, xPoly.length);
-		return poly;
+	/**
+	 * Gets which side of an edge a point is on
+	 * 
+	 * @param a The start of the edge
+	 * @param b The end of the edge
+	 * @param x The x coordinate of the point
+	 * @param y The y coordinate of the point
+	 * @return positive on one side of the edge, negative on the other and zero
+	 *         on the edge
+	 */
+	private static double cross(Vector2D a, Vector2D b, double x, double y)
+	{
+		return (b.x - a.x) * (y - a.y) - (b.y - a.y) * (x - a.x);
 	}
 
 	/**
@@ -135,7 +208,7 @@ public class Rectangle2D extends Entity2D
 	 */
 	public double getWidth()
 	{
-		return p1.distance(p2);
+		return halfWidth * 2;
 	}
 
 	/**
@@ -146,19 +219,199 @@ public class Rectangle2D extends Entity2D
 	 */
 	public double getHeight()
 	{
-		return p1.distance(p3);
+		return halfHeight * 2;
 	}
 
 	@Override
-	public CollisionType getCollisionState(Entity2D entity)
+	public ShapeKind getShapeKind()
+	{
+		return ShapeKind.RECTANGLE;
+	}
+
+	/**
+	 * Finds how far an entity overlaps this rectangle, using the separating
+	 * axis test. Circles are checked against the nearest point of the
+	 * rectangle, and AABBs and rectangles against the edge directions of both
+	 * shapes
+	 * 
+	 * @param entity The circle, AABB or rectangle to check
+	 * @param normal Set to the direction that pushes the entity out of the
+	 *            rectangle the shortest way, if it isn't null
+	 * @return how far the entity has to be pushed along the normal to stop
+	 *         overlapping, which is 0 or less if it isn't overlapping
+	 */
+	public double getPenetration(Entity2D entity, Vector2D normal)
+	{
+		if (entity instanceof Circle2D)
+		{
+			Circle2D circle = (Circle2D) entity;
+			return getCirclePenetration(circle.loc.x, circle.loc.y,
+					circle.getRadius(), normal);
+		}
+		else if (entity instanceof AABB2D)
+		{
+			AABB2D aabb = (AABB2D) entity;
+			return getBoxPenetration((aabb.p1.x + aabb.p2.x) / 2,
+					(aabb.p1.y + aabb.p2.y) / 2, 1, 0, 0, 1,
+					aabb.getWidth() / 2, aabb.getHeight() / 2, normal);
+		}
+		else if (entity instanceof Rectangle2D)
+		{
+			Rectangle2D rect = (Rectangle2D) entity;
+			return getBoxPenetration(rect.centerX, rect.centerY,
+					rect.widthAxisX, rect.widthAxisY, rect.heightAxisX,
+					rect.heightAxisY, rect.halfWidth, rect.halfHeight, normal);
+		}
+		return 0;
+	}
+
+	/**
+	 * Finds how far a circle overlaps this rectangle, by moving its center
+	 * into the rectangle's own directions and clamping it to the edges
+	 */
+	private double getCirclePenetration(double x, double y, double radius,
+			Vector2D normal)
 	{
-		return CollisionType.NO_COLLISION;
+		double dx = x - centerX;
+		double dy = y - centerY;
+		double alongWidth = dx * widthAxisX + dy * widthAxisY;
+		double alongHeight = dx * heightAxisX + dy * heightAxisY;
+		double outsideWidth = alongWidth
+				- Math.min(Math.max(alongWidth, -halfWidth), halfWidth);
+		double outsideHeight = alongHeight
+				- Math.min(Math.max(alongHeight, -halfHeight), halfHeight);
+		double distanceSq = outsideWidth * outsideWidth + outsideHeight
+				* outsideHeight;
+		if (distanceSq > 0)
+		{
+			// The center is outside, so push it away from the nearest point
+			double distance = Math.sqrt(distanceSq);
+			if (normal != null)
+			{
+				normal.set((outsideWidth * widthAxisX + outsideHeight
+						* heightAxisX)
+						/ distance, (outsideWidth * widthAxisY + outsideHeight
+						* heightAxisY)
+						/ distance);
+			}
+			return radius - distance;
+		}
+
+		// The center is inside, so push it out of the nearest edge
+		double toWidthEdge = halfWidth - Math.abs(alongWidth);
+		double toHeightEdge = halfHeight - Math.abs(alongHeight);
+		if (toWidthEdge < toHeightEdge)
+		{
+			if (normal != null)
+			{
+				double sign = alongWidth < 0 ? -1 : 1;
+				normal.set(widthAxisX * sign, widthAxisY * sign);
+			}
+			return radius + toWidthEdge;
+		}
+		if (normal != null)
+		{
+			double sign = alongHeight < 0 ? -1 : 1;
+			normal.set(heightAxisX * sign, heightAxisY * sign);
+		}
+		return radius + toHeightEdge;
+	}
+
+	/**
+	 * Finds how far a box overlaps this rectangle. Two boxes overlap only if
+	 * their shadows overlap along the edge directions of both, and the
+	 * direction they overlap least along is the shortest way out
+	 * 
+	 * @param x The x coordinate of the center of the box
+	 * @param y The y coordinate of the center of the box
+	 * @param axis1X The x of the direction of the box's width
+	 * @param axis1Y The y of the direction of the box's width
+	 * @param axis2X The x of the direction of the box's height
+	 * @param axis2Y The y of the direction of the box's height
+	 * @param half1 Half the width of the box
+	 * @param half2 Half the height of the box
+	 * @param normal Set to the direction out of this rectangle, if not null
+	 * @return how far the box overlaps, which is 0 or less if it doesn't
+	 */
+	private double getBoxPenetration(double x, double y, double axis1X,
+			double axis1Y, double axis2X, double axis2Y, double half1,
+			double half2, Vector2D normal)
+	{
+		double dx = x - centerX;
+		double dy = y - centerY;
+		double least = Double.POSITIVE_INFINITY;
+		double leastX = 0;
+		double leastY = 0;
+		for (int axis = 0; axis < 4; axis++)
+		{
+			double nx, ny;
+			if (axis == 0)
+			{
+				nx = widthAxisX;
+				ny = widthAxisY;
+			}
+			else if (axis == 1)
+			{
+				nx = heightAxisX;
+				ny = heightAxisY;
+			}
+			else if (axis == 2)
+			{
+				nx = axis1X;
+				ny = axis1Y;
+			}
+			else
+			{
+				nx = axis2X;
+				ny = axis2Y;
+			}
+			// Half the length of the shadow of each box along the axis
+			double extent = halfWidth * Math.abs(widthAxisX * nx + widthAxisY
+					* ny) + halfHeight
+					* Math.abs(heightAxisX * nx + heightAxisY * ny) + half1
+					* Math.abs(axis1X * nx + axis1Y * ny) + half2
+					* Math.abs(axis2X * nx + axis2Y * ny);
+			double distance = dx * nx + dy * ny;
+			double overlap = extent - Math.abs(distance);
+			if (overlap <= 0)
+			{
+				// Found a gap, so they can't be overlapping
+				return overlap;
+			}
+			if (overlap < least)
+			{
+				least = overlap;
+				leastX = distance < 0 ? -nx : nx;
+				leastY = distance < 0 ? -ny : ny;
+			}
+		}
+		if (normal != null)
+		{
+			normal.set(leastX, leastY);
+		}
+		return least;
+	}
+
+	/**
+	 * Gets the corners in order around the edges, so that each corner and the
+	 * one after it, wrapping around, are the ends of an edge. The same array
+	 * is returned until the rectangle is moved, so it must not be changed
+	 * 
+	 * @return the corners around the edges
+	 */
+	public Vector2D[] getCorners()
+	{
+		return corners;
 	}
 
 	@Override
 	public Vector2D[] getPointArray()
 	{
-		return new Vector2D[] { p1, p2, p3, p4 };
+		points[0] = p1;
+		points[1] = p2;
+		points[2] = p3;
+		points[3] = p4;
+		return points;
 	}
 
 	@Override
@@ -168,32 +421,77 @@ public class Rectangle2D extends Entity2D
 	}
 
 	/**
-	 * Gets a bounding box around the rectangle
+	 * Gets a bounding box around the rectangle. The same AABB is returned
+	 * every time and kept up to date, so it must not be changed
 	 * 
 	 * @return the bounding box around the rectangle
 	 */
+	@Override
 	public AABB2D getBoundingBox()
 	{
-		return new AABB2D(
-				new Vector2D(Math.min(this.p1.x,
-						Math.min(this.p2.x, Math.min(this.p3.x, this.p4.x))),
-						Math.min(
-								this.p1.y,
-								Math.min(this.p2.y,
-										Math.min(this.p3.y, this.p4.y)))),
-				new Vector2D(Math.max(this.p1.x,
-						Math.max(this.p2.x, Math.max(this.p3.x, this.p4.x))),
-						Math.max(
-								this.p1.y,
-								Math.max(this.p2.y,
-										Math.max(this.p3.y, this.p4.y)))),
-				Vector2D.ZERO);
+		return bounds;
+	}
+
+	/**
+	 * Sets the bounding box to fit around the corners
+	 */
+	private void updateBoundingBox()
+	{
+		if (bounds == null)
+		{
+			bounds = new AABB2D(new Vector2D(), new Vector2D(), Vector2D.ZERO,
+					false);
+		}
+		bounds.p1.set(Math.min(Math.min(p1.x, p2.x), Math.min(p3.x, p4.x)),
+				Math.min(Math.min(p1.y, p2.y), Math.min(p3.y, p4.y)));
+		bounds.p2.set(Math.max(Math.max(p1.x, p2.x), Math.max(p3.x, p4.x)),
+				Math.max(Math.max(p1.y, p2.y), Math.max(p3.y, p4.y)));
 	}
 
 	@Override
 	public Vector2D getCenter()
 	{
-		return this.p1.getMidpoint(this.p4);
+		return new Vector2D(centerX, centerY);
+	}
+
+	/**
+	 * Gets the left edge of the rectangle before it is rotated
+	 * 
+	 * @return the x coordinate of the left edge
+	 */
+	public double getUnrotatedLeft()
+	{
+		return centerX - halfWidth;
+	}
+
+	/**
+	 * Gets the top edge of the rectangle before it is rotated
+	 * 
+	 * @return the y coordinate of the top edge
+	 */
+	public double getUnrotatedTop()
+	{
+		return centerY - halfHeight;
+	}
+
+	/**
+	 * Gets the right edge of the rectangle before it is rotated
+	 * 
+	 * @return the x coordinate of the right edge
+	 */
+	public double getUnrotatedRight()
+	{
+		return centerX + halfWidth;
+	}
+
+	/**
+	 * Gets the bottom edge of the rectangle before it is rotated
+	 * 
+	 * @return the y coordinate of the bottom edge
+	 */
+	public double getUnrotatedBottom()
+	{
+		return centerY + halfHeight;
 	}
 
 	/**
@@ -205,12 +503,8 @@ public class Rectangle2D extends Entity2D
 	{
 		this.angle += angle;
 		this.angle %= 360;
-		Vector2D center = this.getCenter();
-
-		p1 = rotatePoint(p1, center, angle);
-		p2 = rotatePoint(p2, center, angle);
-		p3 = rotatePoint(p3, center, angle);
-		p4 = rotatePoint(p4, center, angle);
+		setRotation(this.angle);
+		updateGeometry();
 	}
 
 	/**
@@ -221,49 +515,83 @@ public class Rectangle2D extends Entity2D
 	 */
 	public void rotate(double angle, Vector2D center)
 	{
+		// Swing the center around, then turn the rectangle by the same amount
+		double radians = Math.toRadians(angle);
+		double turnSin = Math.sin(radians);
+		double turnCos = Math.cos(radians);
+		double offsetX = centerX - center.x;
+		double offsetY = centerY - center.y;
+		centerX = offsetX * turnCos - offsetY * turnSin + center.x;
+		centerY = offsetX * turnSin + offsetY * turnCos + center.y;
+
 		this.angle += angle;
 		this.angle %= 360;
-
-		p1 = rotatePoint(p1, center, angle);
-		p2 = rotatePoint(p2, center, angle);
-		p3 = rotatePoint(p3, center, angle);
-		p4 = rotatePoint(p4, center, angle);
+		setRotation(this.angle);
+		updateGeometry();
 	}
 
 	/**
-	 * Rotates a single vector around another a certain angle
+	 * Sets the cosine and sine of the angle of the rectangle
 	 * 
-	 * @param vector The vector to rotate
-	 * @param center The center to rotate around
-	 * @param angle The angle to rotate the vector
-	 * @return the new rotated vector
+	 * @param angle The angle in degrees
 	 */
-	private Vector2D rotatePoint(Vector2D vector, Vector2D center, double angle)
+	private void setRotation(double angle)
 	{
-		double newX = vector.x - center.x;
-		double newY = vector.y - center.y;
-
 		double radians = Math.toRadians(angle);
-		double sin = Math.sin(radians);
-		double cos = Math.cos(radians);
+		sin = Math.sin(radians);
+		cos = Math.cos(radians);
+	}
 
-		double tempX = newX * cos - newY * sin;
-		double tempY = newX * sin + newY * cos;
+	/**
+	 * Works out the corners, the directions of the edges and the bounds
+	 * again, after the rectangle has been moved or rotated
+	 */
+	private void updateGeometry()
+	{
+		setCorner(p1, -halfWidth, -halfHeight);
+		setCorner(p2, halfWidth, -halfHeight);
+		setCorner(p3, -halfWidth, halfHeight);
+		setCorner(p4, halfWidth, halfHeight);
+		corners[0] = p1;
+		corners[1] = p2;
+		corners[2] = p4;
+		corners[3] = p3;
+
+		widthAxisX = cos;
+		widthAxisY = sin;
+		heightAxisX = -sin;
+		heightAxisY = cos;
+
+		updateBoundingBox();
+		markGeometryChanged();
+	}
 
-		return new Vector2D(tempX + center.x, tempY + center.y);
+	/**
+	 * Moves a corner to where it is after rotating
+	 * 
+	 * @param corner The corner to move
+	 * @param offsetX How far right of the center the corner is, unrotated
+	 * @param offsetY How far down from the center the corner is, unrotated
+	 */
+	private void setCorner(Vector2D corner, double offsetX, double offsetY)
+	{
+		double rotatedX = offsetX * cos - offsetY * sin;
+		double rotatedY = offsetX * sin + offsetY * cos;
+		corner.x = rotatedX + centerX;
+		corner.y = rotatedY + centerY;
 	}
 
 	@Override
 	public void translate(double x, double y)
 	{
-		this.p1.x += x;
-		this.p2.x += x;
-		this.p3.x += x;
-		this.p4.x += x;
-		this.p1.y += y;
-		this.p2.y += y;
-		this.p3.y += y;
-		this.p4.y += y;
+		// Static rectangles get moved by their velocity of zero when hit
+		if (x == 0 && y == 0)
+		{
+			return;
+		}
+		centerX += x;
+		centerY += y;
+		updateGeometry();
 	}
 
 	/**
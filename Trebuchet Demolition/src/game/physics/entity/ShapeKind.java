@@ -0,0 +1,12 @@
+package game.physics.entity;
+
+/**
+ * Stores the kinds of shapes an entity can be, which pick the collision
+ * checks used between two entities
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public enum ShapeKind {
+	CIRCLE, PROJECTILE, AABB, TARGET, RECTANGLE;
+}
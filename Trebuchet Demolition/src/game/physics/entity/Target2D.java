@@ -1,17 +1,7 @@
 package game.physics.entity;
 
-import game.GamePanel;
-import game.graphics.GraphicsTools;
 import game.physics.util.Vector2D;
 
-import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.Image;
-import java.awt.Paint;
-import java.awt.Rectangle;
-import java.awt.Shape;
-import java.awt.TexturePaint;
-
 /**
  * Represents a target to shoot at
  * 
@@ -20,8 +10,6 @@ import java.awt.TexturePaint;
  */
 public class Target2D extends AABB2D
 {
-	private static Image targetTexture = GamePanel.brickTexture;
-
 	/**
 	 * Constructs a target
 	 * 
@@ -33,28 +21,31 @@ public class Target2D extends AABB2D
 		super(p1, p2, Vector2D.ZERO, false);
 	}
 
+	/**
+	 * Constructs a mirror of a target
+	 * 
+	 * @param original The target to mirror
+	 */
+	protected Target2D(Target2D original)
+	{
+		super(original);
+	}
+
 	@Override
-	public void drawEntity(Graphics2D g)
+	public Entity2D clone()
 	{
-		if (this.getTexture() == null)
-		{
-			Shape shape = this.getShape();
-			g.fill(shape);
-		}
-		else
-		{
-			// Draw shape and texture
-			Paint originalPaint = g.getPaint();
-			TexturePaint texturePaint = new TexturePaint(
-					GraphicsTools.bufferImage(targetTexture), new Rectangle(0,
-							0, GamePanel.TEXTURE_SIZE, GamePanel.TEXTURE_SIZE));
-			g.setPaint(texturePaint);
-			Shape poly = this.getShape();
-			g.fill(poly);
-			g.setPaint(originalPaint);
-			g.setColor(Color.DARK_GRAY);
-			g.draw(poly);
-		}
+		return new Target2D(p1.copy(), p2.copy());
 	}
 
+	@Override
+	public Entity2D createMirror()
+	{
+		return new Target2D(this);
+	}
+
+	@Override
+	public ShapeKind getShapeKind()
+	{
+		return ShapeKind.TARGET;
+	}
 }
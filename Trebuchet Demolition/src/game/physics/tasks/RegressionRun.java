@@ -0,0 +1,693 @@
+package game.physics.tasks;
+
+import game.level.Level;
+import game.level.LevelManager;
+import game.level.Replay;
+import game.physics.BodyStore;
+import game.physics.PhysicsEngine;
+import game.physics.ReplayPlayer;
+import game.physics.ShotSearch;
+import game.physics.ShotSolution;
+import game.physics.SolverType;
+import game.physics.broadphase.BroadPhaseType;
+import game.physics.entity.AABB2D;
+import game.physics.entity.Circle2D;
+import game.physics.entity.Entity2D;
+import game.physics.util.GameLogger;
+import game.physics.util.IndexList;
+import game.physics.util.Vector2D;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Vector;
+
+/**
+ * Runs the same scenes without drawing anything and prints how they end, so
+ * that the output of two builds can be compared to find changes that make
+ * the physics play out differently. It is run from the game's directory:
+ * 
+ * <pre>
+ * java game.physics.tasks.RegressionRun levels [broad phase]
+ * java game.physics.tasks.RegressionRun broadphases
+ * java game.physics.tasks.RegressionRun debris [bodies] [updates]
+ * java game.physics.tasks.RegressionRun replays [directory]
+ * java game.physics.tasks.RegressionRun parity [bodies] [updates]
+ * java game.physics.tasks.RegressionRun settle
+ * java game.physics.tasks.RegressionRun search [threads] [updates]
+ * </pre>
+ * 
+ * The levels scene fires a spread of shots at every level in the "levels"
+ * directory, with two loose circles added so that there is something else
+ * moving, and prints the updates taken and where every circle ended up. The
+ * broadphases scene fires the same shots and drops some debris with every broad
+ * phase and solver, prints how long each broad phase took, and exits with an
+ * error if anything ends differently, since the broad phase should only change
+ * how fast the physics is worked out. The debris scene drops many small circles
+ * and prints a hash of where they ended up, and how long each update took. The
+ * replays scene plays every replay saved in the "replays" directory, and exits
+ * with an error if any of them don't win in the same update they were recorded
+ * winning in. The parity scene moves the same bodies with the BodyStore loops
+ * and one entity at a time, and exits with an error if they ever end up in
+ * different places. The settle scene prints how many updates a stack of circles
+ * and boxes, the same stack dropped from higher up, and a single dropped ball
+ * take to fall asleep with each solver. The search scene runs a ShotSearch over
+ * every level, and prints how many shots win and a hash of which ones they are
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class RegressionRun
+{
+	/**
+	 * The size of the world, which is the same as the game panel's
+	 */
+	private static final int WIDTH = 895;
+	private static final int HEIGHT = 572;
+	/**
+	 * The most updates each shot is given to win
+	 */
+	private static final int TICK_LIMIT = 600;
+	/**
+	 * How many circles the broadphases scene drops, and for how many updates,
+	 * few enough that checking every pair doesn't take too long
+	 */
+	private static final int BROAD_PHASE_DEBRIS = 400;
+	private static final int BROAD_PHASE_DEBRIS_TICKS = 300;
+
+	/**
+	 * Runs a scene and prints the results
+	 * 
+	 * @param args The scene, followed by its options
+	 */
+	public static void main(String[] args)
+	{
+		GameLogger.LOGGER.setLevel(java.util.logging.Level.OFF);
+		String scene = args.length > 0 ? args[0] : "levels";
+		if (scene.equals("levels"))
+		{
+			runLevels(args.length > 1 ? BroadPhaseType.valueOf(args[1]
+					.toUpperCase()) : null);
+		}
+		else if (scene.equals("broadphases"))
+		{
+			if (!runBroadPhases())
+			{
+				System.exit(1);
+			}
+		}
+		else if (scene.equals("debris"))
+		{
+			runDebris(args.length > 1 ? Integer.parseInt(args[1]) : 2000,
+					args.length > 2 ? Integer.parseInt(args[2]) : 300);
+		}
+		else if (scene.equals("replays"))
+		{
+			if (!runReplays(new File(args.length > 1 ? args[1] : "replays")))
+			{
+				System.exit(1);
+			}
+		}
+		else if (scene.equals("parity"))
+		{
+			if (!runParity(args.length > 1 ? Integer.parseInt(args[1]) : 500,
+					args.length > 2 ? Integer.parseInt(args[2]) : 1000))
+			{
+				System.exit(1);
+			}
+		}
+		else if (scene.equals("settle"))
+		{
+			runSettle();
+		}
+		else if (scene.equals("search"))
+		{
+			runSearch(args.length > 1 ? Integer.parseInt(args[1]) : 1,
+					args.length > 2 ? Integer.parseInt(args[2]) : 300);
+		}
+		else
+		{
+			System.err.println("Unknown scene: " + scene);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Fires powers 20 to 100 and angles 10 to 170 at every level
+	 * 
+	 * @param broadPhase The broad phase to use, or null for the default
+	 */
+	private static void runLevels(BroadPhaseType broadPhase)
+	{
+		List<String> shots = shootLevels(broadPhase, null);
+		if (shots != null)
+		{
+			for (String shot : shots)
+			{
+				System.out.println(shot);
+			}
+		}
+	}
+
+	/**
+	 * Fires the levels scene's shots and drops debris with every broad phase
+	 * and every solver, comparing each broad phase to the first one
+	 * 
+	 * @return whether every broad phase ended everything the same way
+	 */
+	private static boolean runBroadPhases()
+	{
+		BroadPhaseType[] types = BroadPhaseType.values();
+		boolean same = true;
+		for (SolverType solver : SolverType.values())
+		{
+			List<String> expected = null;
+			long expectedHash = 0;
+			for (BroadPhaseType type : types)
+			{
+				long start = System.nanoTime();
+				List<String> shots = shootLevels(type, solver);
+				if (shots == null)
+				{
+					return false;
+				}
+				long debrisHash = hashPositions(dropDebris(BROAD_PHASE_DEBRIS,
+						BROAD_PHASE_DEBRIS_TICKS, type, solver));
+				// The time goes to the error stream, so the output can still be
+				// compared between runs
+				System.err.println(solver + " " + type + " took "
+						+ (System.nanoTime() - start) / 1000000 + " ms");
+				if (expected == null)
+				{
+					expected = shots;
+					expectedHash = debrisHash;
+					continue;
+				}
+
+				int differences = 0;
+				for (int shot = 0; shot < expected.size(); shot++)
+				{
+					if (!expected.get(shot).equals(shots.get(shot)))
+					{
+						System.out.println("  " + types[0] + ": "
+								+ expected.get(shot));
+						System.out.println("  " + type + ": "
+								+ shots.get(shot));
+						differences++;
+					}
+				}
+				boolean sameDebris = debrisHash == expectedHash;
+				System.out.println("broadphases " + solver + " " + type + " "
+						+ expected.size() + " shots " + differences
+						+ " different from " + types[0] + ", debris "
+						+ (sameDebris ? "same" : "different"));
+				same &= differences == 0 && sameDebris;
+			}
+		}
+		return same;
+	}
+
+	/**
+	 * Fires powers 20 to 100 and angles 10 to 170 at every level, in one
+	 * engine so that loading each shot is tested as well
+	 * 
+	 * @param broadPhase The broad phase to use, or null for the default
+	 * @param solver The solver to use, or null for the default
+	 * @return how each shot ended, or null if a level couldn't be loaded
+	 */
+	private static List<String> shootLevels(BroadPhaseType broadPhase,
+			SolverType solver)
+	{
+		List<String> shots = new ArrayList<String>();
+		PhysicsEngine engine = new PhysicsEngine(WIDTH, HEIGHT);
+		for (Level level : loadSortedLevels())
+		{
+			for (int power = 20; power <= 100; power += 20)
+			{
+				for (int angle = 10; angle <= 170; angle += 40)
+				{
+					try
+					{
+						level.loadEntities();
+					}
+					catch (Exception e)
+					{
+						System.err.println("Failed to load "
+								+ level.getFile().getName() + ": "
+								+ e.getMessage());
+						return null;
+					}
+					level.getEntities().add(
+							new Circle2D(new Vector2D(300, 100),
+									Vector2D.ZERO, 15));
+					level.getEntities().add(
+							new Circle2D(new Vector2D(320, 60), new Vector2D(
+									1, 0), 12));
+					engine.loadLevel(level);
+					if (broadPhase != null)
+					{
+						engine.setBroadPhaseType(broadPhase);
+					}
+					if (solver != null)
+					{
+						engine.setSolverType(solver);
+					}
+					engine.fireProjectile(power, angle);
+					int tick = 0;
+					while (tick < TICK_LIMIT && !engine.hasWon())
+					{
+						engine.update();
+						tick++;
+					}
+					shots.add(level.getFile().getName() + " " + power + " "
+							+ angle + " t=" + tick + " won=" + engine.hasWon()
+							+ circlePositions(engine));
+				}
+			}
+		}
+		return shots;
+	}
+
+	/**
+	 * Finds every winning shot at every level
+	 * 
+	 * @param threads The amount of threads to search on
+	 * @param ticks The most updates each shot is given
+	 */
+	private static void runSearch(int threads, int ticks)
+	{
+		long elapsed = 0;
+		for (Level level : loadSortedLevels())
+		{
+			try
+			{
+				level.loadEntities();
+			}
+			catch (Exception e)
+			{
+				System.err.println("Failed to load "
+						+ level.getFile().getName() + ": " + e.getMessage());
+				return;
+			}
+			ShotSearch search = new ShotSearch(level, WIDTH, HEIGHT);
+			search.setThreads(threads);
+			search.setTickLimit(ticks);
+			long start = System.nanoTime();
+			List<ShotSolution> solutions = search.search();
+			elapsed += System.nanoTime() - start;
+
+			long hash = 17;
+			for (ShotSolution solution : solutions)
+			{
+				hash = hash * 31 + solution.getPower();
+				hash = hash * 31 + solution.getAngle();
+				hash = hash * 31 + solution.getTicks();
+			}
+			System.out.println("search " + level.getFile().getName() + " "
+					+ solutions.size() + " winning shots hash="
+					+ Long.toHexString(hash));
+		}
+		System.err.println(elapsed / 1000000 + " ms searching");
+	}
+
+	/**
+	 * Loads every level, sorted by the name of its file so they are always
+	 * run in the same order
+	 * 
+	 * @return the levels
+	 */
+	private static List<Level> loadSortedLevels()
+	{
+		LevelManager.loadLevels();
+		List<Level> levels = new ArrayList<Level>(LevelManager.getLevels());
+		Collections.sort(levels, new Comparator<Level>() {
+			@Override
+			public int compare(Level a, Level b)
+			{
+				return a.getFile().getName().compareTo(b.getFile().getName());
+			}
+		});
+		return levels;
+	}
+
+	/**
+	 * Drops small circles at random places and speeds, always the same ones
+	 * 
+	 * @param bodies The amount of circles
+	 * @param ticks The amount of updates to do
+	 */
+	private static void runDebris(int bodies, int ticks)
+	{
+		long start = System.nanoTime();
+		PhysicsEngine engine = dropDebris(bodies, ticks, null, null);
+		long elapsed = System.nanoTime() - start;
+
+		int awake = 0;
+		for (Entity2D entity : engine.getEntities())
+		{
+			if (!entity.isSleeping())
+			{
+				awake++;
+			}
+		}
+		System.out.println("debris " + bodies + " bodies " + ticks
+				+ " updates awake=" + awake + " hash="
+				+ Long.toHexString(hashPositions(engine)));
+		// The time goes to the error stream, so the output can still be
+		// compared between runs
+		System.err.println(elapsed / ticks / 1000 + " us per update");
+	}
+
+	/**
+	 * Drops the debris scene's circles and updates them
+	 * 
+	 * @param bodies The amount of circles
+	 * @param ticks The amount of updates to do
+	 * @param broadPhase The broad phase to use, or null for the default
+	 * @param solver The solver to use, or null for the default
+	 * @return the engine the circles were dropped in
+	 */
+	private static PhysicsEngine dropDebris(int bodies, int ticks,
+			BroadPhaseType broadPhase, SolverType solver)
+	{
+		Random random = new Random(5);
+		Vector<Entity2D> entities = new Vector<Entity2D>();
+		for (int body = 0; body < bodies; body++)
+		{
+			entities.add(new Circle2D(new Vector2D(
+					10 + random.nextDouble() * 875,
+					10 + random.nextDouble() * 400), new Vector2D(
+					random.nextGaussian() * 3, random.nextGaussian() * 3), 3));
+		}
+		PhysicsEngine engine = new PhysicsEngine(WIDTH, HEIGHT);
+		engine.loadWorld(new Properties(), entities);
+		if (broadPhase != null)
+		{
+			engine.setBroadPhaseType(broadPhase);
+		}
+		if (solver != null)
+		{
+			engine.setSolverType(solver);
+		}
+
+		for (int tick = 0; tick < ticks; tick++)
+		{
+			engine.update();
+		}
+		return engine;
+	}
+
+	/**
+	 * Hashes where every circle in an engine is, so that two runs can be
+	 * compared exactly without printing every position
+	 * 
+	 * @param engine The engine, with only circles in it
+	 * @return the hash
+	 */
+	private static long hashPositions(PhysicsEngine engine)
+	{
+		long hash = 17;
+		for (Entity2D entity : engine.getEntities())
+		{
+			Circle2D circle = (Circle2D) entity;
+			hash = hash * 31 + Double.doubleToLongBits(circle.loc.x);
+			hash = hash * 31 + Double.doubleToLongBits(circle.loc.y);
+		}
+		return hash;
+	}
+
+	/**
+	 * Prints how many updates it takes for everything to fall asleep in a few
+	 * scenes, with each solver
+	 */
+	private static void runSettle()
+	{
+		for (SolverType solver : SolverType.values())
+		{
+			for (int lift = 0; lift <= 100; lift += 100)
+			{
+				System.out.println("settle pyramid lifted " + lift + " "
+						+ solver + " asleep at " + settle(solver, lift));
+			}
+			System.out.println("settle ball " + solver + " asleep at "
+					+ settle(solver, -1));
+		}
+	}
+
+	/**
+	 * Builds a scene and updates it until everything is asleep
+	 * 
+	 * @param solver The solver to use
+	 * @param lift How far above the floor to build a pyramid of 21 circles
+	 *            and a stack of 4 boxes, or -1 to drop a single ball instead
+	 * @return the amount of updates until everything was asleep, or -1 if it
+	 *         didn't fall asleep in 3000 updates
+	 */
+	private static int settle(SolverType solver, int lift)
+	{
+		final int radius = 10;
+		Vector<Entity2D> entities = new Vector<Entity2D>();
+		if (lift < 0)
+		{
+			entities.add(new Circle2D(new Vector2D(400, 100), new Vector2D(0,
+					0), radius));
+		}
+		else
+		{
+			for (int row = 0; row < 6; row++)
+			{
+				for (int column = 0; column < 6 - row; column++)
+				{
+					entities.add(new Circle2D(new Vector2D(300 + row * radius
+							+ column * 2 * radius, HEIGHT - radius - row * 2
+							* radius * 0.87 - lift), new Vector2D(0, 0),
+							radius));
+				}
+			}
+			for (int box = 0; box < 4; box++)
+			{
+				entities.add(new AABB2D(new Vector2D(600, HEIGHT - 20
+						* (box + 1) - lift), new Vector2D(630, HEIGHT - 20
+						* box - lift), new Vector2D(0, 0), true));
+			}
+		}
+		Properties metadata = new Properties();
+		metadata.setProperty("solver", solver.name());
+		PhysicsEngine engine = new PhysicsEngine(WIDTH, HEIGHT);
+		engine.loadWorld(metadata, entities);
+		for (int tick = 1; tick <= 3000; tick++)
+		{
+			engine.update();
+			if (engine.isAtRest())
+			{
+				return tick;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Moves the same circles and AABBs with the walls, gravity and movement
+	 * loops of a BodyStore, and with each entity's own handleWallCollision(),
+	 * then checks that both end up with the same positions and velocities.
+	 * The bodies start scattered inside and outside the world, so every wall
+	 * is hit from both sides
+	 * 
+	 * @param bodies The amount of bodies
+	 * @param ticks The amount of updates to do
+	 * @return whether the two ways always agreed
+	 */
+	private static boolean runParity(int bodies, int ticks)
+	{
+		final double restitution = PhysicsEngine.RESTITUTION;
+		final Vector2D gravity = PhysicsEngine.GRAVITY_CONSTANT;
+		Random random = new Random(7);
+		List<Entity2D> stored = new ArrayList<Entity2D>();
+		List<Entity2D> single = new ArrayList<Entity2D>();
+		IndexList indices = new IndexList();
+		for (int body = 0; body < bodies; body++)
+		{
+			double x = -50 + random.nextDouble() * (WIDTH + 100);
+			double y = -50 + random.nextDouble() * (HEIGHT + 100);
+			Vector2D vel = new Vector2D(random.nextGaussian() * 8,
+					random.nextGaussian() * 8);
+			Entity2D entity;
+			if (body % 2 == 0)
+			{
+				entity = new Circle2D(new Vector2D(x, y), vel,
+						2 + random.nextInt(20));
+			}
+			else
+			{
+				double size = 4 + random.nextDouble() * 40;
+				entity = new AABB2D(new Vector2D(x, y), new Vector2D(x + size,
+						y + size * random.nextDouble()), vel, true);
+			}
+			stored.add(entity);
+			single.add(entity.clone());
+			indices.add(body);
+		}
+		BodyStore store = new BodyStore();
+		store.rebuild(stored, indices);
+
+		double worst = 0;
+		int wallMismatches = 0;
+		for (int tick = 0; tick < ticks; tick++)
+		{
+			store.gather();
+			store.handleWalls(WIDTH, HEIGHT, restitution);
+			store.applyGravity(gravity.x, gravity.y);
+			store.integrate(1);
+			store.scatter();
+
+			for (int body = 0; body < bodies; body++)
+			{
+				Entity2D entity = single.get(body);
+				boolean hit = entity.handleWallCollision(WIDTH, HEIGHT,
+						restitution);
+				entity.vel.x -= gravity.x;
+				entity.vel.y -= gravity.y;
+				entity.translate(-entity.vel.x, -entity.vel.y);
+				if (hit != store.hitWall[body])
+				{
+					wallMismatches++;
+				}
+				worst = Math.max(worst, difference(stored.get(body), entity));
+			}
+		}
+		// Storing AABBs by their center rounds their corners slightly
+		boolean same = worst < 1e-6 && wallMismatches == 0;
+		System.out.println("parity " + bodies + " bodies " + ticks
+				+ " updates largest difference=" + worst + " wall mismatches="
+				+ wallMismatches + (same ? " same" : " DIFFERENT"));
+		return same;
+	}
+
+	/**
+	 * Finds how far apart two copies of an entity have ended up
+	 * 
+	 * @param a One copy
+	 * @param b The other copy
+	 * @return the largest difference between their points and velocities
+	 */
+	private static double difference(Entity2D a, Entity2D b)
+	{
+		Vector2D[] pointsA = a.getPointArray();
+		Vector2D[] pointsB = b.getPointArray();
+		double largest = Math.max(Math.abs(a.vel.x - b.vel.x),
+				Math.abs(a.vel.y - b.vel.y));
+		for (int point = 0; point < pointsA.length; point++)
+		{
+			largest = Math.max(largest, Math.max(
+					Math.abs(pointsA[point].x - pointsB[point].x),
+					Math.abs(pointsA[point].y - pointsB[point].y)));
+		}
+		return largest;
+	}
+
+	/**
+	 * Plays every replay in a directory, and checks that each is won in the
+	 * update it was recorded winning in
+	 * 
+	 * @param directory The directory the replays are in
+	 * @return whether every replay played out the same as it was recorded
+	 */
+	private static boolean runReplays(File directory)
+	{
+		File[] files = directory.listFiles();
+		if (files == null)
+		{
+			System.err.println("No replays in " + directory.getPath());
+			return false;
+		}
+		Arrays.sort(files);
+		LevelManager.loadLevels();
+
+		// Replays are recorded at the size of the game panel, so one engine
+		// is enough for all of them unless some were recorded at another
+		PhysicsEngine engine = new PhysicsEngine(WIDTH, HEIGHT);
+		boolean allSame = true;
+		for (File file : files)
+		{
+			Replay replay;
+			try
+			{
+				replay = Replay.load(file);
+			}
+			catch (IOException e)
+			{
+				System.out.println(file.getName() + " unreadable: "
+						+ e.getMessage());
+				allSame = false;
+				continue;
+			}
+			Level level = findLevel(replay.getLevelID());
+			if (level == null)
+			{
+				System.out.println(file.getName() + " missing level "
+						+ replay.getLevelID());
+				allSame = false;
+				continue;
+			}
+			PhysicsEngine replayEngine = engine;
+			if (replay.getWidth() != WIDTH || replay.getHeight() != HEIGHT)
+			{
+				replayEngine = new PhysicsEngine(replay.getWidth(),
+						replay.getHeight());
+			}
+			long wonTick = new ReplayPlayer(replay).play(replayEngine, level,
+					TICK_LIMIT);
+			boolean same = wonTick == replay.getWonTick();
+			allSame &= same;
+			System.out.println(file.getName() + " recorded="
+					+ replay.getWonTick() + " played=" + wonTick
+					+ (same ? " same" : " DIFFERENT"));
+		}
+		return allSame;
+	}
+
+	/**
+	 * Finds a loaded level by the name of its file
+	 * 
+	 * @param levelID The name of the level's file
+	 * @return the level, or null if there is none with that name
+	 */
+	private static Level findLevel(String levelID)
+	{
+		for (Level level : LevelManager.getLevels())
+		{
+			if (level.getFile().getName().equals(levelID))
+			{
+				return level;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Writes out where every circle in the engine is
+	 * 
+	 * @param engine The physics engine
+	 * @return the positions, each in brackets
+	 */
+	private static String circlePositions(PhysicsEngine engine)
+	{
+		StringBuilder positions = new StringBuilder();
+		for (Entity2D entity : engine.getEntities())
+		{
+			if (entity instanceof Circle2D)
+			{
+				Circle2D circle = (Circle2D) entity;
+				positions.append(String.format(" (%.3f,%.3f)", circle.loc.x,
+						circle.loc.y));
+			}
+		}
+		return positions.toString();
+	}
+}
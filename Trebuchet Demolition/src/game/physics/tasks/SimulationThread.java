@@ -0,0 +1,295 @@
+package game.physics.tasks;
+
+import game.physics.PhysicsEngine;
+import game.physics.ReplayPlayer;
+import game.physics.WorldSnapshot;
+import game.physics.util.GameLogger;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * A thread which updates the physics engine at a fixed rate, no matter how
+ * long painting or dialogs take on the Swing thread. After every batch of
+ * updates, it publishes a snapshot of the world for painting and hands a task
+ * to an executor, which is usually the Swing thread
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class SimulationThread extends Thread
+{
+	private static final Logger LOGGER = GameLogger.LOGGER;
+
+	/**
+	 * The most updates done to catch up at once, so that a long stall doesn't
+	 * make the simulation fall further and further behind
+	 */
+	private static final int MAX_STEPS = 5;
+	/**
+	 * The most updates done in one time warp, in case the world never comes
+	 * to rest
+	 */
+	private static final int MAX_WARP_TICKS = 100000;
+
+	private final PhysicsEngine engine;
+	private final long tickNanos;
+	private final Runnable task;
+	private final Executor executor;
+
+	private volatile boolean running;
+
+	/**
+	 * Fires the shots of a replay before each update, if one is playing
+	 */
+	private volatile ReplayPlayer replay;
+
+	/**
+	 * Whether the engine should be updated as fast as possible until the
+	 * world is won or at rest
+	 */
+	private volatile boolean warping;
+
+	/**
+	 * The two snapshots that are written in turn. Painting reads the front
+	 * one, while the back one is written on this thread and then swapped in
+	 */
+	private final WorldSnapshot[] snapshots;
+	private volatile WorldSnapshot front;
+
+	/**
+	 * Whether the task is waiting to run or still running, so that it is never
+	 * queued more than once
+	 */
+	private final AtomicBoolean taskPending;
+
+	/**
+	 * Constructs a simulation thread, which isn't started yet
+	 * 
+	 * @param engine The physics engine to update
+	 * @param tickRate The time between updates in milliseconds
+	 * @param task The task to run after updating
+	 * @param executor Runs the task, for example on the Swing thread
+	 */
+	public SimulationThread(PhysicsEngine engine, int tickRate,
+			Runnable task, Executor executor)
+	{
+		super("Simulation");
+		this.engine = engine;
+		this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickRate);
+		this.task = task;
+		this.executor = executor;
+		this.running = true;
+		this.snapshots = new WorldSnapshot[] { new WorldSnapshot(),
+				new WorldSnapshot() };
+		engine.writeSnapshot(snapshots[0]);
+		this.front = snapshots[0];
+		this.taskPending = new AtomicBoolean(false);
+		this.setDaemon(true);
+	}
+
+	@Override
+	public void run()
+	{
+		LOGGER.info("Simulation thread has started");
+		long previousTime = System.nanoTime();
+		long accumulator = 0;
+		while (running)
+		{
+			if (warping)
+			{
+				runWarp();
+				// Don't try to catch up on the time the warp took
+				previousTime = System.nanoTime();
+				accumulator = 0;
+			}
+
+			long currentTime = System.nanoTime();
+			accumulator += currentTime - previousTime;
+			previousTime = currentTime;
+			accumulator = Math.min(accumulator, MAX_STEPS * tickNanos);
+
+			// Do as many fixed updates as the time that has passed allows
+			boolean updated = false;
+			while (accumulator >= tickNanos && running && !warping)
+			{
+				doUpdate();
+				accumulator -= tickNanos;
+				updated = true;
+			}
+			if (updated)
+			{
+				publish();
+				postTask();
+			}
+
+			try
+			{
+				long waitNanos = tickNanos - accumulator;
+				TimeUnit.NANOSECONDS.sleep(waitNanos);
+			}
+			catch (InterruptedException e)
+			{
+				// halt() interrupts the sleep, and running will be false, or
+				// warp() does and warping will be true
+			}
+		}
+		LOGGER.info("Simulation thread has stopped");
+	}
+
+	/**
+	 * Updates the engine once, firing any shots the replay has due first
+	 */
+	private void doUpdate()
+	{
+		ReplayPlayer replay = this.replay;
+		if (replay != null)
+		{
+			replay.fireDueShots(engine);
+		}
+		engine.update();
+	}
+
+	/**
+	 * Updates the engine as fast as possible, without making any snapshots,
+	 * until the world is won or at rest. Only the snapshot at the end is
+	 * published
+	 */
+	private void runWarp()
+	{
+		long startTick = engine.getTickCount();
+		for (int tick = 0; tick < MAX_WARP_TICKS && running && warping; tick++)
+		{
+			doUpdate();
+			ReplayPlayer replay = this.replay;
+			boolean shotsLeft = replay != null && !replay.isFinished();
+			if (engine.hasWon() || (!shotsLeft && engine.isAtRest()))
+			{
+				break;
+			}
+		}
+		warping = false;
+		publish();
+		postTask();
+		LOGGER.info("Warped " + (engine.getTickCount() - startTick)
+				+ " updates");
+	}
+
+	/**
+	 * Copies the world into the back snapshot and swaps it to the front. If
+	 * something is still reading the back snapshot from before the last swap,
+	 * this waits for it to finish, which is at most one paint
+	 */
+	private void publish()
+	{
+		WorldSnapshot back = front == snapshots[0] ? snapshots[1]
+				: snapshots[0];
+		while (back.isRetained())
+		{
+			Thread.yield();
+		}
+		engine.writeSnapshot(back);
+		front = back;
+	}
+
+	/**
+	 * Queues the task, unless it is already waiting or running
+	 */
+	private void postTask()
+	{
+		if (taskPending.compareAndSet(false, true))
+		{
+			executor.execute(new Runnable() {
+				@Override
+				public void run()
+				{
+					try
+					{
+						task.run();
+					}
+					finally
+					{
+						taskPending.set(false);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Gets the latest snapshot of the world, which isn't written again until
+	 * it is release()d. It has to be released once it has been read, or the
+	 * simulation will stop
+	 * 
+	 * @return the latest snapshot, which must not be changed
+	 */
+	public WorldSnapshot acquireSnapshot()
+	{
+		while (true)
+		{
+			WorldSnapshot snapshot = front;
+			snapshot.retain();
+			// It may have been swapped out and started being written before
+			// it was retained, in which case try the new front one
+			if (snapshot == front)
+			{
+				return snapshot;
+			}
+			snapshot.release();
+		}
+	}
+
+	/**
+	 * Plays a replay in real time, by firing its shots before the updates
+	 * they were recorded at
+	 * 
+	 * @param replay The player of the replay, or null to stop playing one
+	 */
+	public void setReplay(ReplayPlayer replay)
+	{
+		this.replay = replay;
+	}
+
+	/**
+	 * Skips to the result, by updating the engine as fast as possible until
+	 * the world is won or at rest. The task is run once it gets there, and
+	 * then the thread carries on at the normal rate
+	 */
+	public void warp()
+	{
+		warping = true;
+		this.interrupt();
+	}
+
+	/**
+	 * Checks if the thread is skipping to the result
+	 * 
+	 * @return whether the engine is being updated as fast as possible
+	 */
+	public boolean isWarping()
+	{
+		return warping;
+	}
+
+	/**
+	 * Stops the thread, and waits for the update in progress to finish
+	 */
+	public void halt()
+	{
+		running = false;
+		this.interrupt();
+		if (Thread.currentThread() != this)
+		{
+			try
+			{
+				this.join();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package game.physics.util;
+
+import game.physics.entity.Entity2D;
+
+/**
+ * Checks and resolves collisions between one pair of shape kinds
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public interface CollisionKernel
+{
+	/**
+	 * Checks whether a moving entity is colliding with another one. This may
+	 * be called from many threads at once, so it can't change anything
+	 * 
+	 * @param a The moving entity
+	 * @param b The entity to check against
+	 * @return the type of collision, or NO_COLLISION
+	 */
+	public CollisionType test(Entity2D a, Entity2D b);
+
+	/**
+	 * Bounces two colliding entities off each other
+	 * 
+	 * @param a The moving entity
+	 * @param b The entity it collided with
+	 * @param RESTITUTION How much slower entities move after bouncing
+	 * @param timeStep The part of an update being stepped, which scales how
+	 *            far entities are pushed back out of each other
+	 */
+	public void resolve(Entity2D a, Entity2D b, final double RESTITUTION,
+			double timeStep);
+}
@@ -23,9 +23,10 @@ public class CollisionResolver
 	 * @param a The first circle
 	 * @param b The second circle
 	 * @param RESTITUTION The minimum restitution between the circles
+	 * @param timeStep The part of an update being stepped
 	 */
 	public static void resolveCircleCollision(Circle2D a, Circle2D b,
-			final double RESTITUTION)
+			final double RESTITUTION, double timeStep)
 	{
 		// // Calculate variables in physics collision
 		double totalMass = a.getMass() + b.getMass();
@@ -64,10 +65,17 @@ public class CollisionResolver
 				* Math.sin(phi) + lengthB
 				* Math.sin(betaB - phi) * Math.sin(phi + Math.PI / 2);
 
-		// Take one of the circles out of the other by subtracting velocity
-		a.loc = a.loc.subtract(a.vel);
-		a.vel = new Vector2D(newXA, newYA);
-		b.vel = new Vector2D(newXB, newYB);
+		// Take one of the circles out of the other by subtracting velocity,
+		// as much as it moves in the step
+		a.loc.x -= a.vel.x * timeStep;
+		a.loc.y -= a.vel.y * timeStep;
+		a.vel.set(newXA, newYA);
+		// Entities without physics are shared between engines, so they must
+		// never be written
+		if (b.hasPhysics())
+		{
+			b.vel.set(newXB, newYB);
+		}
 	}
 
 	/**
@@ -75,10 +83,17 @@ public class CollisionResolver
 	 * 
 	 * @param velX The x-coordinate of the point
 	 * @param velY The y-coordinate of the point
-	 * @return the angle relative to the positive x-axis
+	 * @return the angle relative to the positive x-axis, or 0 for the origin
 	 */
 	public static double computeBeta(double velX, double velY)
 	{
+		// The origin has no angle, and 0 / 0 would make everything worked out
+		// from it NaN. Anything at rest has no length to multiply the angle by
+		// anyways, so any angle will do
+		if (velX == 0 && velY == 0)
+		{
+			return 0;
+		}
 		// Return a different angle depending on the quadrant of the point
 		if (velX < 0)
 		{
@@ -114,11 +129,17 @@ public class CollisionResolver
 		if (widthOverlap > 0)
 		{
 			a.vel.x = -a.vel.x / RESTITUTION;
-			b.vel.x = -b.vel.x / RESTITUTION;
+			if (b.hasPhysics())
+			{
+				b.vel.x = -b.vel.x / RESTITUTION;
+			}
 			if (heightOverlap > 0)
 			{
 				a.vel.y = -a.vel.y;
-				b.vel.y = -b.vel.y;
+				if (b.hasPhysics())
+				{
+					b.vel.y = -b.vel.y;
+				}
 			}
 		}
 	}
@@ -133,30 +154,37 @@ public class CollisionResolver
 	public static void resolveAABBCircleCollision(Circle2D a, AABB2D b,
 			final double RESTITUTION)
 	{
-		double vertDist = MathOperations.pointToLineSegDistance(b.p1,
-				new Vector2D(b.p1.x, b.p2.y), a.loc);
-		double vertDist2 = MathOperations.pointToLineSegDistance(new Vector2D(
-				b.p2.x, b.p1.y), b.p2, a.loc);
-		double horizDist = MathOperations.pointToLineSegDistance(b.p1,
-				new Vector2D(b.p2.x, b.p1.y), a.loc);
-		double horizDist2 = MathOperations.pointToLineSegDistance(new Vector2D(
-				b.p1.x, b.p2.y), b.p2, a.loc);
-
-		// Teleport the circle outside of the AABB first
-		a.loc.subtract(a.vel);
+		double vertDist = MathOperations.pointToLineSegDistance(b.p1.x,
+				b.p1.y, b.p1.x, b.p2.y, a.loc);
+		double vertDist2 = MathOperations.pointToLineSegDistance(b.p2.x,
+				b.p1.y, b.p2.x, b.p2.y, a.loc);
+		double horizDist = MathOperations.pointToLineSegDistance(b.p1.x,
+				b.p1.y, b.p2.x, b.p1.y, a.loc);
+		double horizDist2 = MathOperations.pointToLineSegDistance(b.p1.x,
+				b.p2.y, b.p2.x, b.p2.y, a.loc);
+
 		double radius = a.getRadius();
 
 		// Check if any distances of the circle to any of the AABB's edges are
 		// less than the radius
+		// The AABB is only bounced if it moves, since AABBs without physics
+		// are shared between engines
+		boolean bounceAABB = b.hasPhysics();
 		if (vertDist <= radius || vertDist2 <= radius)
 		{
 			a.vel.x = -a.vel.x / RESTITUTION;
-			b.vel.x = -b.vel.x / RESTITUTION;
+			if (bounceAABB)
+			{
+				b.vel.x = -b.vel.x / RESTITUTION;
+			}
 		}
 		if (horizDist <= radius || horizDist2 <= radius)
 		{
 			a.vel.y = -a.vel.y / RESTITUTION;
-			b.vel.y = -b.vel.y / RESTITUTION;
+			if (bounceAABB)
+			{
+				b.vel.y = -b.vel.y / RESTITUTION;
+			}
 		}
 	}
 
@@ -167,11 +195,12 @@ public class CollisionResolver
 	 * @param b The second Rectangle
 	 * @param RESTITUTION The minimum restitution between the Circle and the
 	 *            Rectangle
+	 * @param timeStep The part of an update being stepped
 	 */
 	public static void resolveRectCircleCollision(Circle2D a, Rectangle2D b,
-			final double RESTITUTION)
+			final double RESTITUTION, double timeStep)
 	{
-		Vector2D center = a.getCenter();
+		Vector2D center = a.loc;
 		// Get the distance between the center of the circle and every edge of
 		// the rectangle
 		double dist1 = MathOperations.pointToLineDistance(b.p1, b.p2, center);
@@ -180,30 +209,47 @@ public class CollisionResolver
 		double dist4 = MathOperations.pointToLineDistance(b.p3, b.p1, center);
 		double min = Math.min(dist1, Math.min(dist2, Math.min(dist3, dist4)));
 
-		b.translate(-b.vel.x, -b.vel.y);
+		// Rectangles without physics are shared between engines and never move
+		if (b.hasPhysics())
+		{
+			b.translate(-b.vel.x * timeStep, -b.vel.y * timeStep);
+		}
 
-		Vector2D plane;
+		Vector2D from;
+		Vector2D to;
 		if (dist1 == min)
 		{
-			plane = b.p1.subtract(b.p2);
+			from = b.p1;
+			to = b.p2;
 		}
 		else if (dist2 == min)
 		{
-			plane = b.p2.subtract(b.p4);
+			from = b.p2;
+			to = b.p4;
 		}
 		else if (dist3 == min)
 		{
-			plane = b.p4.subtract(b.p3);
+			from = b.p4;
+			to = b.p3;
 		}
 		else
 		{
-			plane = b.p3.subtract(b.p1);
+			from = b.p3;
+			to = b.p1;
 		}
+		double planeX = from.x - to.x;
+		double planeY = from.y - to.y;
 
 		// Get the normal, which is the line perpendicular to the plane, by
 		// flipping y and x, however make y negative since swing uses inverse y
 		// coordinates
-		a.vel = a.vel.reflect(new Vector2D(-plane.y, plane.x));
+		double normalLength = Math.sqrt(planeY * planeY + planeX * planeX);
+		double normalX = -planeY / normalLength;
+		double normalY = planeX / normalLength;
+
+		// Reflect the velocity over the normal
+		double dot = 2 * (a.vel.x * normalX + a.vel.y * normalY);
+		a.vel.set(a.vel.x - normalX * dot, a.vel.y - normalY * dot);
 		// a.vel.y /= RESTITUTION;
 
 	}
@@ -0,0 +1,253 @@
+package game.physics.util;
+
+import game.physics.entity.AABB2D;
+import game.physics.entity.Circle2D;
+import game.physics.entity.Entity2D;
+import game.physics.entity.Rectangle2D;
+import game.physics.entity.ShapeKind;
+
+/**
+ * Finds the collision kernel for a pair of entities by the kinds of their
+ * shapes, so that checking a pair is one array lookup instead of a chain of
+ * instanceof checks. A new shape only needs a ShapeKind and its kernels
+ * registered here
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class CollisionTable
+{
+	/**
+	 * Used for pairs that never collide
+	 */
+	public static final CollisionKernel NONE = new CollisionKernel()
+	{
+		@Override
+		public CollisionType test(Entity2D a, Entity2D b)
+		{
+			return CollisionType.NO_COLLISION;
+		}
+
+		@Override
+		public void resolve(Entity2D a, Entity2D b, final double RESTITUTION,
+				double timeStep)
+		{
+		}
+	};
+
+	private static final CollisionKernel CIRCLE_TO_CIRCLE = new CollisionKernel()
+	{
+		@Override
+		public CollisionType test(Entity2D a, Entity2D b)
+		{
+			if (((Circle2D) a).overlaps((Circle2D) b))
+			{
+				return CollisionType.CIRCLE_TO_CIRCLE;
+			}
+			return CollisionType.NO_COLLISION;
+		}
+
+		@Override
+		public void resolve(Entity2D a, Entity2D b, final double RESTITUTION,
+				double timeStep)
+		{
+			CollisionResolver.resolveCircleCollision((Circle2D) a,
+					(Circle2D) b, RESTITUTION, timeStep);
+		}
+	};
+
+	private static final CollisionKernel CIRCLE_TO_AABB = new CollisionKernel()
+	{
+		@Override
+		public CollisionType test(Entity2D a, Entity2D b)
+		{
+			if (((Circle2D) a).overlapsBounds((AABB2D) b))
+			{
+				return CollisionType.CIRCLE_TO_AABB;
+			}
+			return CollisionType.NO_COLLISION;
+		}
+
+		@Override
+		public void resolve(Entity2D a, Entity2D b, final double RESTITUTION,
+				double timeStep)
+		{
+			CollisionResolver.resolveAABBCircleCollision((Circle2D) a,
+					(AABB2D) b, RESTITUTION);
+		}
+	};
+
+	private static final CollisionKernel CIRCLE_TO_RECT = new CollisionKernel()
+	{
+		@Override
+		public CollisionType test(Entity2D a, Entity2D b)
+		{
+			if (((Rectangle2D) b).getPenetration(a, null) > 0)
+			{
+				return CollisionType.CIRCLE_TO_RECT;
+			}
+			return CollisionType.NO_COLLISION;
+		}
+
+		@Override
+		public void resolve(Entity2D a, Entity2D b, final double RESTITUTION,
+				double timeStep)
+		{
+			CollisionResolver.resolveRectCircleCollision((Circle2D) a,
+					(Rectangle2D) b, RESTITUTION, timeStep);
+		}
+	};
+
+	/**
+	 * A projectile hitting a target wins the game instead of bouncing
+	 */
+	private static final CollisionKernel PROJECTILE_TO_TARGET = new CollisionKernel()
+	{
+		@Override
+		public CollisionType test(Entity2D a, Entity2D b)
+		{
+			if (((Circle2D) a).overlapsBounds((AABB2D) b))
+			{
+				return CollisionType.WINNING_COLLISION;
+			}
+			return CollisionType.NO_COLLISION;
+		}
+
+		@Override
+		public void resolve(Entity2D a, Entity2D b, final double RESTITUTION,
+				double timeStep)
+		{
+		}
+	};
+
+	private static final CollisionKernel AABB_TO_AABB = new CollisionKernel()
+	{
+		@Override
+		public CollisionType test(Entity2D a, Entity2D b)
+		{
+			return MathOperations.hasAABBCollision((AABB2D) a, (AABB2D) b);
+		}
+
+		@Override
+		public void resolve(Entity2D a, Entity2D b, final double RESTITUTION,
+				double timeStep)
+		{
+		}
+	};
+
+	/**
+	 * Anything against a rectangle, which finds its own overlap
+	 */
+	private static final CollisionKernel TO_RECT = new CollisionKernel()
+	{
+		@Override
+		public CollisionType test(Entity2D a, Entity2D b)
+		{
+			if (((Rectangle2D) b).getPenetration(a, null) > 0)
+			{
+				return a instanceof AABB2D ? CollisionType.AABB_TO_RECT
+						: CollisionType.RECT_TO_RECT;
+			}
+			return CollisionType.NO_COLLISION;
+		}
+
+		@Override
+		public void resolve(Entity2D a, Entity2D b, final double RESTITUTION,
+				double timeStep)
+		{
+		}
+	};
+
+	/**
+	 * A rectangle against anything, which is the same overlap from the
+	 * other side
+	 */
+	private static final CollisionKernel FROM_RECT = new CollisionKernel()
+	{
+		@Override
+		public CollisionType test(Entity2D a, Entity2D b)
+		{
+			if (((Rectangle2D) a).getPenetration(b, null) > 0)
+			{
+				if (b instanceof Circle2D)
+				{
+					return CollisionType.CIRCLE_TO_RECT;
+				}
+				return b instanceof AABB2D ? CollisionType.AABB_TO_RECT
+						: CollisionType.RECT_TO_RECT;
+			}
+			return CollisionType.NO_COLLISION;
+		}
+
+		@Override
+		public void resolve(Entity2D a, Entity2D b, final double RESTITUTION,
+				double timeStep)
+		{
+		}
+	};
+
+	private static final CollisionKernel[][] KERNELS = new CollisionKernel[ShapeKind
+			.values().length][ShapeKind.values().length];
+
+	static
+	{
+		for (CollisionKernel[] row : KERNELS)
+		{
+			for (int kind = 0; kind < row.length; kind++)
+			{
+				row[kind] = NONE;
+			}
+		}
+		// Projectiles are circles, except against targets
+		for (ShapeKind circle : new ShapeKind[] { ShapeKind.CIRCLE,
+				ShapeKind.PROJECTILE })
+		{
+			register(circle, ShapeKind.CIRCLE, CIRCLE_TO_CIRCLE);
+			register(circle, ShapeKind.PROJECTILE, CIRCLE_TO_CIRCLE);
+			register(circle, ShapeKind.AABB, CIRCLE_TO_AABB);
+			register(circle, ShapeKind.TARGET, CIRCLE_TO_AABB);
+			register(circle, ShapeKind.RECTANGLE, CIRCLE_TO_RECT);
+		}
+		register(ShapeKind.PROJECTILE, ShapeKind.TARGET, PROJECTILE_TO_TARGET);
+
+		// Targets are AABBs. Only circles check against AABBs, not the
+		// other way around
+		for (ShapeKind aabb : new ShapeKind[] { ShapeKind.AABB,
+				ShapeKind.TARGET })
+		{
+			register(aabb, ShapeKind.AABB, AABB_TO_AABB);
+			register(aabb, ShapeKind.TARGET, AABB_TO_AABB);
+			register(aabb, ShapeKind.RECTANGLE, TO_RECT);
+		}
+		register(ShapeKind.RECTANGLE, ShapeKind.RECTANGLE, TO_RECT);
+		register(ShapeKind.RECTANGLE, ShapeKind.CIRCLE, FROM_RECT);
+		register(ShapeKind.RECTANGLE, ShapeKind.PROJECTILE, FROM_RECT);
+		register(ShapeKind.RECTANGLE, ShapeKind.AABB, FROM_RECT);
+		register(ShapeKind.RECTANGLE, ShapeKind.TARGET, FROM_RECT);
+	}
+
+	/**
+	 * Gets the kernel for a pair of shape kinds
+	 * 
+	 * @param first The kind of the moving entity
+	 * @param second The kind of the entity it is checked against
+	 * @return the kernel for the pair, which is NONE if they never collide
+	 */
+	public static CollisionKernel get(ShapeKind first, ShapeKind second)
+	{
+		return KERNELS[first.ordinal()][second.ordinal()];
+	}
+
+	/**
+	 * Sets the kernel for a pair of shape kinds, replacing the old one
+	 * 
+	 * @param first The kind of the moving entity
+	 * @param second The kind of the entity it is checked against
+	 * @param kernel The kernel to use for the pair
+	 */
+	public static void register(ShapeKind first, ShapeKind second,
+			CollisionKernel kernel)
+	{
+		KERNELS[first.ordinal()][second.ordinal()] = kernel;
+	}
+}
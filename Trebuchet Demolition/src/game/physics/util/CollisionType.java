@@ -7,5 +7,5 @@ package game.physics.util;
  * @version Dec 2014
  */
 public enum CollisionType {
-	SIDE_WALL, FLOOR_CEILING, CORNER, NO_COLLISION, CIRCLE_TO_CIRCLE, AABB_TO_AABB, CIRCLE_TO_RECT, CIRCLE_TO_AABB, WINNING_COLLISION;
+	SIDE_WALL, FLOOR_CEILING, CORNER, NO_COLLISION, CIRCLE_TO_CIRCLE, AABB_TO_AABB, CIRCLE_TO_RECT, CIRCLE_TO_AABB, WINNING_COLLISION, AABB_TO_RECT, RECT_TO_RECT;
 }
@@ -0,0 +1,237 @@
+package game.physics.util;
+
+import game.physics.entity.AABB2D;
+import game.physics.entity.Circle2D;
+import game.physics.entity.Entity2D;
+import game.physics.entity.Rectangle2D;
+
+/**
+ * Finds when a moving circle first touches an entity partway through an
+ * update, so that fast circles can be stopped there instead of jumping
+ * straight past thin entities
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class ContinuousCollision
+{
+	/**
+	 * The time of impact returned when the circle doesn't hit the entity
+	 * before the end of the update
+	 */
+	public static final double NO_IMPACT = 1;
+
+	/**
+	 * Finds how far through its movement a circle first touches an entity.
+	 * The shapes match the ones used by Circle2D.getCollisionState(), so the
+	 * circle is colliding in the normal way once it reaches the impact
+	 * 
+	 * @param x The x coordinate of the center of the circle
+	 * @param y The y coordinate of the center of the circle
+	 * @param radius The radius of the circle
+	 * @param dx How far the circle moves in x in the update
+	 * @param dy How far the circle moves in y in the update
+	 * @param entity The entity, which is not moving
+	 * @return the fraction of the movement done before the impact, or
+	 *         NO_IMPACT if the circle misses it or is already touching it
+	 */
+	public static double timeOfImpact(double x, double y, double radius,
+			double dx, double dy, Entity2D entity)
+	{
+		if (entity instanceof Circle2D)
+		{
+			Circle2D circle = (Circle2D) entity;
+			return sweepPoint(x, y, dx, dy, circle.loc.x, circle.loc.y, radius
+					+ circle.getRadius());
+		}
+		else if (entity instanceof Rectangle2D)
+		{
+			Rectangle2D rect = (Rectangle2D) entity;
+			Vector2D[] corners = rect.getCorners();
+			if (rect.contains(x, y))
+			{
+				return NO_IMPACT;
+			}
+			for (int corner = 0; corner < corners.length; corner++)
+			{
+				if (touches(x, y, corners[corner], corners[(corner + 1)
+						% corners.length], radius))
+				{
+					return NO_IMPACT;
+				}
+			}
+			double impact = NO_IMPACT;
+			for (int corner = 0; corner < corners.length; corner++)
+			{
+				impact = Math.min(impact, sweepSegment(x, y, dx, dy,
+						corners[corner], corners[(corner + 1)
+								% corners.length], radius));
+			}
+			return impact;
+		}
+		else if (entity instanceof AABB2D)
+		{
+			// Circles hit AABBs by their bounds, so grow the AABB by the radius
+			// and sweep the center through it
+			AABB2D aabb = (AABB2D) entity;
+			return sweepBox(x, y, dx, dy, aabb.p1.x - radius, aabb.p1.y
+					- radius, aabb.p2.x + radius, aabb.p2.y + radius);
+		}
+		return NO_IMPACT;
+	}
+
+	/**
+	 * Checks if a point is already within a distance of a line segment
+	 * 
+	 * @param x The x coordinate of the point
+	 * @param y The y coordinate of the point
+	 * @param a One end of the line segment
+	 * @param b The other end of the line segment
+	 * @param distance The distance at which they touch
+	 * @return whether they are touching
+	 */
+	private static boolean touches(double x, double y, Vector2D a, Vector2D b,
+			double distance)
+	{
+		return MathOperations.pointToLineSegDistance(a.x, a.y, b.x, b.y, x,
+				y) < distance;
+	}
+
+	/**
+	 * Finds when a moving point first comes within a distance of a fixed
+	 * point
+	 * 
+	 * @param x The x coordinate of the moving point
+	 * @param y The y coordinate of the moving point
+	 * @param dx How far the point moves in x
+	 * @param dy How far the point moves in y
+	 * @param px The x coordinate of the fixed point
+	 * @param py The y coordinate of the fixed point
+	 * @param distance The distance at which they touch
+	 * @return the fraction of the movement before they touch, or NO_IMPACT
+	 */
+	private static double sweepPoint(double x, double y, double dx, double dy,
+			double px, double py, double distance)
+	{
+		double fx = x - px;
+		double fy = y - py;
+		double c = fx * fx + fy * fy - distance * distance;
+		double b = fx * dx + fy * dy;
+		// Already touching, or moving away
+		if (c <= 0 || b >= 0)
+		{
+			return NO_IMPACT;
+		}
+		double a = dx * dx + dy * dy;
+		double discriminant = b * b - a * c;
+		if (discriminant < 0)
+		{
+			return NO_IMPACT;
+		}
+		double t = (-b - Math.sqrt(discriminant)) / a;
+		return t < NO_IMPACT ? t : NO_IMPACT;
+	}
+
+	/**
+	 * Finds when a moving point first comes within a distance of a line
+	 * segment
+	 * 
+	 * @param x The x coordinate of the moving point
+	 * @param y The y coordinate of the moving point
+	 * @param dx How far the point moves in x
+	 * @param dy How far the point moves in y
+	 * @param a One end of the line segment
+	 * @param b The other end of the line segment
+	 * @param distance The distance at which they touch
+	 * @return the fraction of the movement before they touch, or NO_IMPACT
+	 */
+	private static double sweepSegment(double x, double y, double dx,
+			double dy, Vector2D a, Vector2D b, double distance)
+	{
+		double lineX = b.x - a.x;
+		double lineY = b.y - a.y;
+		double lengthSq = lineX * lineX + lineY * lineY;
+		if (lengthSq == 0)
+		{
+			return sweepPoint(x, y, dx, dy, a.x, a.y, distance);
+		}
+		double length = Math.sqrt(lengthSq);
+		double normalX = -lineY / length;
+		double normalY = lineX / length;
+
+		// Check the flat side of the segment first
+		double side = (x - a.x) * normalX + (y - a.y) * normalY;
+		double approach = dx * normalX + dy * normalY;
+		if (Math.abs(side) >= distance && side * approach < 0)
+		{
+			double t = (Math.abs(side) - distance) / Math.abs(approach);
+			if (t < NO_IMPACT)
+			{
+				double along = ((x + dx * t - a.x) * lineX + (y + dy * t - a.y)
+						* lineY) / lengthSq;
+				if (along >= 0 && along <= 1)
+				{
+					return t;
+				}
+			}
+		}
+		// Otherwise it can only hit one of the rounded ends
+		return Math.min(sweepPoint(x, y, dx, dy, a.x, a.y, distance),
+				sweepPoint(x, y, dx, dy, b.x, b.y, distance));
+	}
+
+	/**
+	 * Finds when a moving point first enters an axis aligned box
+	 * 
+	 * @param x The x coordinate of the moving point
+	 * @param y The y coordinate of the moving point
+	 * @param dx How far the point moves in x
+	 * @param dy How far the point moves in y
+	 * @param minX The left of the box
+	 * @param minY The top of the box
+	 * @param maxX The right of the box
+	 * @param maxY The bottom of the box
+	 * @return the fraction of the movement before it enters, or NO_IMPACT
+	 */
+	private static double sweepBox(double x, double y, double dx, double dy,
+			double minX, double minY, double maxX, double maxY)
+	{
+		if (x >= minX && x <= maxX && y >= minY && y <= maxY)
+		{
+			return NO_IMPACT;
+		}
+		double enter = 0;
+		double exit = NO_IMPACT;
+
+		// Clip the movement against the x and then the y sides of the box
+		if (dx == 0)
+		{
+			if (x < minX || x > maxX)
+				return NO_IMPACT;
+		}
+		else
+		{
+			double t1 = (minX - x) / dx;
+			double t2 = (maxX - x) / dx;
+			enter = Math.max(enter, Math.min(t1, t2));
+			exit = Math.min(exit, Math.max(t1, t2));
+		}
+		if (dy == 0)
+		{
+			if (y < minY || y > maxY)
+				return NO_IMPACT;
+		}
+		else
+		{
+			double t1 = (minY - y) / dy;
+			double t2 = (maxY - y) / dy;
+			enter = Math.max(enter, Math.min(t1, t2));
+			exit = Math.min(exit, Math.max(t1, t2));
+		}
+		if (enter > exit || enter >= NO_IMPACT)
+		{
+			return NO_IMPACT;
+		}
+		return enter;
+	}
+}
@@ -0,0 +1,19 @@
+package game.physics.util;
+
+import java.util.logging.Logger;
+
+/**
+ * Holds the game's logger, so the physics and levels can log to it without
+ * needing the game window's class, which would stop them running headless
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class GameLogger
+{
+	/**
+	 * The logger for the whole game
+	 */
+	public static final Logger LOGGER = Logger
+			.getLogger("game.TrebuchetDemolition");
+}
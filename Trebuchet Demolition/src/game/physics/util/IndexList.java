@@ -0,0 +1,106 @@
+package game.physics.util;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive int indices, used so that the physics engine
+ * doesn't have to box indices into Integers every tick
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ */
+public class IndexList
+{
+	private int[] data;
+	private int size;
+
+	/**
+	 * Constructs an empty index list
+	 */
+	public IndexList()
+	{
+		this(16);
+	}
+
+	/**
+	 * Constructs an empty index list
+	 * 
+	 * @param capacity The initial capacity of the list
+	 */
+	public IndexList(int capacity)
+	{
+		this.data = new int[Math.max(capacity, 1)];
+		this.size = 0;
+	}
+
+	/**
+	 * Adds an index to the end of the list
+	 * 
+	 * @param index The index to add
+	 */
+	public void add(int index)
+	{
+		if (size == data.length)
+		{
+			data = Arrays.copyOf(data, size * 2);
+		}
+		data[size++] = index;
+	}
+
+	/**
+	 * Removes an index from the list, by moving the last index into its place
+	 * 
+	 * @param index The index to remove
+	 * @return whether the index was in the list
+	 */
+	public boolean remove(int index)
+	{
+		for (int position = 0; position < size; position++)
+		{
+			if (data[position] == index)
+			{
+				size--;
+				data[position] = data[size];
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the index at a position in the list
+	 * 
+	 * @param position The position in the list
+	 * @return the index at the position
+	 */
+	public int get(int position)
+	{
+		return data[position];
+	}
+
+	/**
+	 * Gets the amount of indices in the list
+	 * 
+	 * @return the amount of indices in the list
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Empties the list, but keeps its capacity
+	 */
+	public void clear()
+	{
+		size = 0;
+	}
+
+	/**
+	 * Sorts the indices in ascending order
+	 */
+	public void sort()
+	{
+		Arrays.sort(data, 0, size);
+	}
+}
@@ -2,8 +2,6 @@ package game.physics.util;
 
 import game.physics.entity.AABB2D;
 
-import java.awt.geom.Line2D;
-
 /**
  * Contains math operations to simplify physics calculations
  * 
@@ -66,6 +64,60 @@ public class MathOperations
 	public static double pointToLineSegDistance(Vector2D a, Vector2D b,
 			Vector2D p)
 	{
-		return Line2D.ptSegDist(a.x, a.y, b.x, b.y, p.x, p.y);
+		return pointToLineSegDistance(a.x, a.y, b.x, b.y, p);
+	}
+
+	/**
+	 * Gets the shortest distance between a point and a line segment, without
+	 * needing vectors for the ends of the line
+	 * 
+	 * @param ax The x coordinate of point A of the line
+	 * @param ay The y coordinate of point A of the line
+	 * @param bx The x coordinate of point B of the line
+	 * @param by The y coordinate of point B of the line
+	 * @param p The point to measure the distance from
+	 * @return The shortest distance between the points
+	 */
+	public static double pointToLineSegDistance(double ax, double ay,
+			double bx, double by, Vector2D p)
+	{
+		return pointToLineSegDistance(ax, ay, bx, by, p.x, p.y);
+	}
+
+	/**
+	 * Gets the shortest distance between a point and a line segment, without
+	 * needing any vectors
+	 * 
+	 * @param ax The x coordinate of point A of the line
+	 * @param ay The y coordinate of point A of the line
+	 * @param bx The x coordinate of point B of the line
+	 * @param by The y coordinate of point B of the line
+	 * @param pointX The x coordinate of the point to measure the distance from
+	 * @param pointY The y coordinate of the point to measure the distance from
+	 * @return The shortest distance between the points
+	 */
+	public static double pointToLineSegDistance(double ax, double ay,
+			double bx, double by, double pointX, double pointY)
+	{
+		// Same steps as java.awt.geom.Line2D.ptSegDist, so the results don't
+		// change, without needing AWT
+		double lineX = bx - ax;
+		double lineY = by - ay;
+		double px = pointX - ax;
+		double py = pointY - ay;
+		double dot = px * lineX + py * lineY;
+		double projectedSq = 0;
+		if (dot > 0)
+		{
+			// Measure from the other end of the line instead
+			px = lineX - px;
+			py = lineY - py;
+			dot = px * lineX + py * lineY;
+			if (dot > 0)
+			{
+				projectedSq = dot * dot / (lineX * lineX + lineY * lineY);
+			}
+		}
+		return Math.sqrt(Math.max(px * px + py * py - projectedSq, 0));
 	}
 }
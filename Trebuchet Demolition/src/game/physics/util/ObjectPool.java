@@ -0,0 +1,269 @@
+package game.physics.util;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Keeps objects that are no longer in use so they can be handed out again,
+ * instead of making a new one every time and leaving the old one to be
+ * garbage collected. Objects are acquire()d when they are needed and
+ * release()d once nothing uses them any more.
+ * 
+ * In debug mode the pool remembers where every object it handed out was
+ * acquired, so it can catch an object being released twice, and report
+ * objects that were dropped without being released. This isn't thread safe,
+ * so each pool should only be used by one thread, or while holding a lock
+ * 
+ * @author Gordon Guan
+ * @version Oct 2026
+ * @param <T> The type of object in the pool
+ */
+public abstract class ObjectPool<T>
+{
+	private static final Logger LOGGER = GameLogger.LOGGER;
+
+	private final ArrayDeque<T> free;
+	private final int maxFree;
+	private int created;
+	private int outstanding;
+
+	/**
+	 * Where each object that is handed out was acquired, in debug mode
+	 */
+	private Map<T, Throwable> acquiredAt;
+
+	/**
+	 * Constructs an empty pool
+	 * 
+	 * @param maxFree The most unused objects that are kept. Any more that are
+	 *            released are left to be garbage collected
+	 */
+	public ObjectPool(int maxFree)
+	{
+		this.free = new ArrayDeque<T>();
+		this.maxFree = maxFree;
+		this.created = 0;
+		this.outstanding = 0;
+	}
+
+	/**
+	 * Makes a new object, when there are no unused ones to hand out
+	 * 
+	 * @return the new object
+	 */
+	protected abstract T create();
+
+	/**
+	 * Clears an object as it is released, so it doesn't hold on to anything.
+	 * Does nothing unless overridden
+	 * 
+	 * @param object The object being released
+	 */
+	protected void reset(T object)
+	{
+	}
+
+	/**
+	 * Hands out an unused object, or a new one if there are none. The object
+	 * still holds whatever was set on it before it was released
+	 * 
+	 * @return the object
+	 */
+	public T acquire()
+	{
+		T object = free.pollFirst();
+		if (object == null)
+		{
+			object = create();
+			created++;
+		}
+		outstanding++;
+		if (acquiredAt != null)
+		{
+			acquiredAt.put(object, new Throwable("Acquired here"));
+		}
+		return object;
+	}
+
+	/**
+	 * Gives an object back to the pool. It must not be used again until it is
+	 * acquire()d again
+	 * 
+	 * @param object The object to give back
+	 * @throws IllegalStateException if, in debug mode, the object isn't
+	 *             handed out by this pool, which usually means it was
+	 *             released twice
+	 */
+	public void release(T object)
+	{
+		if (acquiredAt != null && acquiredAt.remove(object) == null)
+		{
+			throw new IllegalStateException(
+					"Released an object that isn't handed out: " + object);
+		}
+		outstanding = Math.max(outstanding - 1, 0);
+		reset(object);
+		if (free.size() < maxFree)
+		{
+			free.addFirst(object);
+		}
+	}
+
+	/**
+	 * Counts an object as handed out again, for when something that was
+	 * released or abandon()ed has come back into use without being acquired,
+	 * such as an entity that is restored by rewinding
+	 * 
+	 * @param object The object that is in use again
+	 * @return whether the object was unused and has been taken back out
+	 */
+	public boolean reclaim(T object)
+	{
+		boolean wasFree = false;
+		for (Iterator<T> iterator = free.iterator(); iterator.hasNext();)
+		{
+			if (iterator.next() == object)
+			{
+				iterator.remove();
+				wasFree = true;
+				break;
+			}
+		}
+		outstanding++;
+		if (acquiredAt != null)
+		{
+			acquiredAt.put(object, new Throwable("Reclaimed here"));
+		}
+		return wasFree;
+	}
+
+	/**
+	 * Stops counting an object as handed out without giving it back, for
+	 * when it is still kept somewhere the pool can't see and might come back
+	 * into use later
+	 * 
+	 * @param object The object to stop counting
+	 */
+	public void abandon(T object)
+	{
+		if (acquiredAt != null)
+		{
+			acquiredAt.remove(object);
+		}
+		outstanding = Math.max(outstanding - 1, 0);
+	}
+
+	/**
+	 * Reports the objects that were handed out and aren't in use any more,
+	 * but were never released. This only finds anything in debug mode, and
+	 * each leak is only reported once
+	 * 
+	 * @param inUse Everything that the objects handed out could still be in
+	 * @return the amount of leaked objects found
+	 */
+	public int checkLeaks(Collection<?> inUse)
+	{
+		if (acquiredAt == null || acquiredAt.isEmpty())
+		{
+			return 0;
+		}
+		Map<Object, Boolean> live = new IdentityHashMap<Object, Boolean>();
+		for (Object object : inUse)
+		{
+			live.put(object, Boolean.TRUE);
+		}
+		int leaks = 0;
+		for (Iterator<Map.Entry<T, Throwable>> iterator = acquiredAt
+				.entrySet().iterator(); iterator.hasNext();)
+		{
+			Map.Entry<T, Throwable> entry = iterator.next();
+			if (!live.containsKey(entry.getKey()))
+			{
+				LOGGER.warning("Pooled object was dropped without being released: "
+						+ entry.getKey()
+						+ "\n"
+						+ stackTrace(entry.getValue()));
+				iterator.remove();
+				outstanding = Math.max(outstanding - 1, 0);
+				leaks++;
+			}
+		}
+		return leaks;
+	}
+
+	/**
+	 * Checks if the pool remembers where its objects were acquired
+	 * 
+	 * @return whether debug mode is on
+	 */
+	public boolean isDebug()
+	{
+		return acquiredAt != null;
+	}
+
+	/**
+	 * Sets whether the pool remembers where its objects were acquired, which
+	 * is slow but finds objects that are released twice or never released.
+	 * Only objects acquired after it is turned on are tracked
+	 * 
+	 * @param debug Whether debug mode is on
+	 */
+	public void setDebug(boolean debug)
+	{
+		if (debug && acquiredAt == null)
+		{
+			acquiredAt = new IdentityHashMap<T, Throwable>();
+		}
+		else if (!debug)
+		{
+			acquiredAt = null;
+		}
+	}
+
+	/**
+	 * Gets the amount of objects handed out and not released yet
+	 * 
+	 * @return the amount of objects in use
+	 */
+	public int getOutstanding()
+	{
+		return outstanding;
+	}
+
+	/**
+	 * Gets the amount of unused objects waiting to be handed out
+	 * 
+	 * @return the amount of unused objects
+	 */
+	public int getFree()
+	{
+		return free.size();
+	}
+
+	/**
+	 * Gets the amount of objects the pool has ever had to make
+	 * 
+	 * @return the amount of objects made
+	 */
+	public int getCreated()
+	{
+		return created;
+	}
+
+	/**
+	 * Writes out where an object was acquired
+	 */
+	private static String stackTrace(Throwable where)
+	{
+		StringBuilder trace = new StringBuilder();
+		for (StackTraceElement element : where.getStackTrace())
+		{
+			trace.append("\tat ").append(element).append('\n');
+		}
+		return trace.toString();
+	}
+}
@@ -193,6 +193,72 @@ public class Vector2D
 		y = 0;
 	}
 
+	/**
+	 * Sets this vector's components
+	 * 
+	 * @param x X component
+	 * @param y Y component
+	 * @return this vector
+	 */
+	public Vector2D set(double x, double y)
+	{
+		this.x = x;
+		this.y = y;
+		return this;
+	}
+
+	/**
+	 * Sets this vector's components to another vector's
+	 * 
+	 * @param vector The vector to copy the components of
+	 * @return this vector
+	 */
+	public Vector2D set(Vector2D vector)
+	{
+		this.x = vector.x;
+		this.y = vector.y;
+		return this;
+	}
+
+	/**
+	 * Adds a vector to this one, without making a new vector
+	 * 
+	 * @param vector The other vector
+	 * @return this vector
+	 */
+	public Vector2D addLocal(Vector2D vector)
+	{
+		x += vector.x;
+		y += vector.y;
+		return this;
+	}
+
+	/**
+	 * Subtracts a vector from this one, without making a new vector
+	 * 
+	 * @param vector The other vector
+	 * @return this vector
+	 */
+	public Vector2D subLocal(Vector2D vector)
+	{
+		x -= vector.x;
+		y -= vector.y;
+		return this;
+	}
+
+	/**
+	 * Multiplies all components by a scalar, without making a new vector
+	 * 
+	 * @param scalar The factor
+	 * @return this vector
+	 */
+	public Vector2D scaleLocal(double scalar)
+	{
+		x *= scalar;
+		y *= scalar;
+		return this;
+	}
+
 	/**
 	 * Returns whether this vector is in an axis-aligned bounding box The
 	 * minimum and maximum vectors given must be truly the minimum and maximum X